@@ -0,0 +1,78 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Compare the bomb placement (Floyd's sampling) with the former rejection
+ * sampling, on Board2D and BoardPyramid at several densities
+ *
+ * Both write the bombs through the board, which keeps its counters and the
+ * cases changed up to date, and start from a board reset between two runs.
+ *
+ * Run with : ant bench
+ */
+public class BombPlacementBenchmark {
+
+    private static final int WARMUP = 20;
+    private static final int ROUNDS = 50;
+    private static final double[] DENSITIES = {0.10, 0.50, 0.95};
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-22s %8s %14s %14s", "board", "density", "rejection(us)", "floyd(us)"));
+        for (double density : DENSITIES) {
+            run("Board2D 200x200", new Board2D(200, 200, 0), density);
+            run("BoardPyramid 200", new BoardPyramid(200, 0), density);
+        }
+    }
+
+    private static void run(String name, Board board, double density) {
+        board.nbBomb = (int) (board.getNbCase() * density);
+        BombRandom r = BombRandom.Kind.JDK.create(42);
+        double rejection = measure(board, () -> rejection(board, r));
+        double floyd = measure(board, () -> board.generateBomb(r));
+        System.out.println(String.format("%-22s %7.0f%% %14.1f %14.1f", name, density * 100, rejection, floyd));
+    }
+
+    /**
+     * Average time in microseconds of a placement on a board just reset
+     *
+     * @param board
+     * @param placement
+     * @return
+     */
+    private static double measure(Board board, Runnable placement) {
+        for (int i = 0; i < WARMUP; i++) {
+            board.resetBoard();
+            placement.run();
+        }
+        long total = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            board.resetBoard();
+            long start = System.nanoTime();
+            placement.run();
+            total += System.nanoTime() - start;
+        }
+        return total / (ROUNDS * 1000.0);
+    }
+
+    /**
+     * The former placement : draw a row then a column until a case without
+     * bomb is found (without the console output)
+     *
+     * @param board
+     * @param r
+     */
+    private static void rejection(Board board, BombRandom r) {
+        int i_random, j_random;
+        for (int i = 0; i < board.nbBomb; i++) {
+            do {
+                i_random = r.nextInt(board.getNbRow());
+                j_random = r.nextInt(board.getNbCol(i_random));
+            } while (board.cells.is(board.indexOf(i_random, j_random), CellStore.TRAP));
+            board.setCell(board.indexOf(i_random, j_random), CellStore.TRAP, true);
+        }
+    }
+}
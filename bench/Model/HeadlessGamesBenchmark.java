@@ -0,0 +1,48 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Random;
+
+/**
+ * Measure how many games per second the headless engine plays, each game
+ * revealing random cases until it is won or lost
+ *
+ * Run with : ant bench -Dbench.class=Model.HeadlessGamesBenchmark
+ */
+public class HeadlessGamesBenchmark {
+
+    private static final long DURATION = 3_000_000_000L;
+
+    public static void main(String[] args) {
+        run("Board2D 16x30/99", GameEngine.Shape.SQUARE, 16, 30, 99);
+        run("BoardPyramid 16/34", GameEngine.Shape.PYRAMID, 16, 0, 34);
+    }
+
+    private static void run(String name, GameEngine.Shape shape, int row, int col, int bomb) {
+        Random r = new Random(42);
+        GameEngine engine = GameEngine.create(shape, row, col, bomb, r.nextLong());
+        long games = 0;
+        long moves = 0;
+        long won = 0;
+        long start = System.nanoTime();
+        while (System.nanoTime() - start < DURATION) {
+            engine.reset(r.nextLong());
+            while (engine.getState() == GameState.RUNNING) {
+                int i = r.nextInt(engine.getNbRow());
+                engine.play(GameEngine.Move.REVEAL, i, r.nextInt(engine.getNbCol(i)));
+                moves++;
+            }
+            if (engine.getState() == GameState.WON) {
+                won++;
+            }
+            games++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("%-20s %10.0f games/s %12.0f moves/s %6d won", name,
+                games / seconds, moves / seconds, won));
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Throughput and rejection rate of the no-guess generator for the levels of
+ * the difficulty slider of the GUI, first click in the middle of the board
+ *
+ * Run with : ant bench -Dbench.class=Model.NoGuessBenchmark
+ */
+public class NoGuessBenchmark {
+
+    private static final int BOARDS = 50;
+
+    public static void main(String[] args) {
+        run("Board2D 9x9/3", new Board2D(9, 9, 3, 0));
+        run("Board2D 16x16/34", new Board2D(16, 16, 34, 0));
+        run("Board2D 16x30/100", new Board2D(16, 30, 100, 0));
+        run("BoardPyramid 9/3", new BoardPyramid(9, 3, 0));
+        run("BoardPyramid 16/34", new BoardPyramid(16, 34, 0));
+        run("BoardPyramid 30/50", new BoardPyramid(30, 50, 0));
+    }
+
+    private static void run(String name, Board board) {
+        NoGuessGenerator generator = new NoGuessGenerator();
+        int row = board.getNbRow() / 2;
+        int col = board.getNbCol(row) / 2;
+        int found = 0;
+        for (int i = 0; i < BOARDS; i++) {
+            if (generator.generate(board, row, col, i)) {
+                found++;
+            }
+        }
+        System.out.println(String.format("%-20s %4d/%d found %9.1f boards/s %9.0f candidates/s %6.1f %% rejected",
+                name, found, BOARDS, generator.getBoardsPerSecond(), generator.getCandidatesPerSecond(),
+                100 * generator.getRejectionRate()));
+    }
+}
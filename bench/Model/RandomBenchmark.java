@@ -0,0 +1,72 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compare the generators of the bombs : boards generated per second by
+ * several threads at once, each one resetting its own board with new seeds.
+ * Checks that a seed gives the same board twice
+ *
+ * Run with : ant bench -Dbench.class=Model.RandomBenchmark [-Dbench.args="threads"]
+ */
+public class RandomBenchmark {
+
+    private static final long DURATION = 2_000_000_000L;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.println(String.format("%-12s %-22s %14s  (%d threads)", "generator", "board", "boards/s", threads));
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            check(kind);
+            run(kind, "Board2D 16x30/99", 16, 30, 99, threads);
+            run(kind, "Board2D 200x200/8000", 200, 200, 8000, threads);
+        }
+    }
+
+    private static void run(BombRandom.Kind kind, String name, int row, int col, int bomb, int threads)
+            throws InterruptedException {
+        AtomicLong boards = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long first = t * 1_000_000_000L;
+            Thread w = new Thread(() -> {
+                Board board = new Board2D(row, col, bomb);
+                board.setRandomKind(kind);
+                long seed = first;
+                long n = 0;
+                long start = System.nanoTime();
+                while (System.nanoTime() - start < DURATION) {
+                    board.resetBoard(seed++);
+                    n++;
+                }
+                boards.addAndGet(n);
+            });
+            workers.add(w);
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        System.out.println(String.format("%-12s %-22s %14.0f", kind, name, boards.get() * 1e9 / DURATION));
+    }
+
+    /**
+     * Generate the same board twice, from a new board each time
+     */
+    private static void check(BombRandom.Kind kind) {
+        GameEngine a = GameEngine.create(GameEngine.Shape.SQUARE, 30, 30, 150, 2016, kind);
+        GameEngine b = GameEngine.create(GameEngine.Shape.SQUARE, 30, 30, 150, 2016, kind);
+        for (int i = 0; i < a.getBoard().getNbCase(); i++) {
+            if (a.getBoard().cells.get(i) != b.getBoard().cells.get(i)) {
+                throw new IllegalStateException(kind + " gave two boards for the same seed");
+            }
+        }
+    }
+}
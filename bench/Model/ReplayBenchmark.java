@@ -0,0 +1,104 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Record random games in a move journal, then replay them, checking that
+ * every replayed game ends exactly as the one recorded
+ *
+ * Run with : ant bench -Dbench.class=Model.ReplayBenchmark [-Dbench.args="games"]
+ */
+public class ReplayBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        Path file = Files.createTempFile("moves", ".mswj");
+        try {
+            run(file, games);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void run(Path file, int games) throws IOException {
+        Random r = new Random(42);
+        Board board = new Board2D(16, 30, 99);
+        List<byte[]> ends = new ArrayList<>();
+        long[] finish = new long[games];
+        long moves = 0;
+        long recorded;
+        long start = System.nanoTime();
+        try (MoveJournal journal = new MoveJournal(file)) {
+            board.setJournal(journal);
+            for (int g = 0; g < games; g++) {
+                board.resetBoard();
+                board.getTimer().start();
+                while (board.getState() == GameState.RUNNING && board.getNbFlag() < 200) {
+                    int i = r.nextInt(board.getNbCase());
+                    int row = board.rowOf(i);
+                    int col = i - board.indexOf(row, 0);
+                    int move = r.nextInt(10);
+                    if (move < 6) {
+                        board.leftClick(row, col);
+                    } else if (move < 9) {
+                        board.rightClick(row, col);
+                    } else {
+                        board.chord(row, col);
+                    }
+                    moves++;
+                }
+                ends.add(snapshot(board));
+                finish[g] = board.getFinishTime();
+            }
+            recorded = journal.getNbMove(); // the moves ignored by the board are not recorded
+        }
+        double recordSeconds = (System.nanoTime() - start) / 1e9;
+        long size = Files.size(file);
+
+        start = System.nanoTime();
+        MoveReplayer replayer = MoveReplayer.load(file);
+        long replayed = 0;
+        int g = 0;
+        int mismatches = 0;
+        while (replayer.nextGame()) {
+            replayed += replayer.fastForward(Long.MAX_VALUE);
+            if (!Arrays.equals(ends.get(g), snapshot(replayer.getBoard()))
+                    || finish[g] != replayer.getBoard().getFinishTime()) {
+                mismatches++;
+            }
+            g++;
+        }
+        double replaySeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(String.format("record %10.0f moves/s  %d games, %d moves, %d recorded, %.2f bytes/move",
+                moves / recordSeconds, games, moves, recorded, (double) size / recorded));
+        System.out.println(String.format("replay %10.0f moves/s  %d games, %d moves, %d mismatches",
+                replayed / replaySeconds, g, replayed, mismatches));
+        if (g != games || replayed != recorded || mismatches != 0) {
+            throw new IllegalStateException("Replay differs from the games recorded");
+        }
+    }
+
+    /**
+     * The bits of every case followed by the state of the game
+     */
+    private static byte[] snapshot(Board board) {
+        byte[] s = new byte[board.getNbCase() + 1];
+        for (int i = 0; i < board.getNbCase(); i++) {
+            s[i] = (byte) board.cells.get(i);
+        }
+        s[board.getNbCase()] = (byte) board.getState().ordinal();
+        return s;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Measure the time per move of the deterministic solver on expert boards
+ * (16x30, 99 bombs), each game opened on a case with no bomb around
+ *
+ * Run with : ant bench -Dbench.class=Model.SolverBenchmark
+ */
+public class SolverBenchmark {
+
+    private static final int GAMES = 5000;
+
+    public static void main(String[] args) {
+        for (int run = 0; run < 3; run++) {
+            long moves = 0;
+            long nanos = 0;
+            int won = 0;
+            for (int g = 0; g < GAMES; g++) {
+                Board b = new Board2D(16, 30, 99, g);
+                int start = opening(b);
+                if (start < 0) {
+                    continue;
+                }
+                b.leftClick(b.rowOf(start), b.colOf(start));
+                long t = System.nanoTime();
+                Solver s = new Solver(b);
+                if (s.solve() == GameState.WON) {
+                    won++;
+                }
+                nanos += System.nanoTime() - t;
+                moves += s.getNbMove();
+            }
+            System.out.println(String.format("%d games, %d won, %d moves, %.0f ns/move",
+                    GAMES, won, moves, nanos / (double) moves));
+        }
+    }
+
+    /**
+     * Find a case with no bomb around, the board is read as the generator
+     * would
+     */
+    private static int opening(Board b) {
+        for (int i = 0; i < b.getNbCase(); i++) {
+            if (!b.cells.is(i, CellStore.TRAP) && b.cells.getNbBomb(i) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drive many game timers with the shared timer wheel : cost of start, restart
+ * and stop, ticks delivered and threads used
+ *
+ * Run with : ant bench -Dbench.class=Model.TimerWheelBenchmark [-Dbench.args=100000]
+ */
+public class TimerWheelBenchmark {
+
+    private static final int SECONDS = 5;
+
+    public static void main(String[] args) throws InterruptedException {
+        int nbTimer = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int threads = Thread.activeCount();
+        AtomicLong ticks = new AtomicLong();
+        GameTimer[] timers = new GameTimer[nbTimer];
+        for (int i = 0; i < nbTimer; i++) {
+            timers[i] = new GameTimer();
+            timers[i].addObserver((o, arg) -> ticks.incrementAndGet());
+        }
+
+        long start = System.nanoTime();
+        for (GameTimer t : timers) {
+            t.start();
+        }
+        report("start", start, nbTimer);
+
+        Thread.sleep(SECONDS * 1000 + 500);
+        long delivered = ticks.get();
+        System.out.println(String.format("%d ticks in %d.5 s, %d expected, %d threads added",
+                delivered, SECONDS, (long) nbTimer * (SECONDS + 1), Thread.activeCount() - threads));
+
+        start = System.nanoTime();
+        for (GameTimer t : timers) {
+            t.restart();
+        }
+        report("restart", start, nbTimer);
+
+        start = System.nanoTime();
+        for (GameTimer t : timers) {
+            t.stop();
+        }
+        report("stop", start, nbTimer);
+        System.out.println(TimerWheel.getDefault().getNbPending() + " tasks left in the wheel");
+    }
+
+    private static void report(String name, long start, int n) {
+        System.out.println(String.format("%-8s %8.0f ns/timer", name, (System.nanoTime() - start) / (double) n));
+    }
+}
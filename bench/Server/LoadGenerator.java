@@ -0,0 +1,161 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Play random moves on many sessions of a game server and report the latency
+ * of the moves
+ *
+ * Starts its own server unless a port is given. Run with :
+ * ant bench -Dbench.class=Server.LoadGenerator -Dbench.args="sessions connections seconds [port]"
+ */
+public class LoadGenerator {
+
+    private static final int ROW = 16;
+    private static final int COL = 16;
+    private static final int BOMB = 40;
+
+    public static void main(String[] args) throws Exception {
+        int nbSession = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int nbConnection = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        GameServer server = null;
+        int port;
+        if (args.length > 3) {
+            port = Integer.parseInt(args[3]);
+        } else {
+            server = new GameServer(0);
+            server.start();
+            port = server.getPort();
+        }
+
+        Client[] clients = new Client[nbConnection];
+        for (int i = 0; i < nbConnection; i++) {
+            clients[i] = new Client(port, i);
+        }
+        // spread the sessions over the connections
+        for (int i = 0; i < nbSession; i++) {
+            clients[i % nbConnection].open();
+        }
+        System.out.println(nbSession + " sessions on " + nbConnection + " connections");
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] threads = new Thread[nbConnection];
+        for (int i = 0; i < nbConnection; i++) {
+            Client c = clients[i];
+            threads[i] = new Thread(() -> c.play(end));
+            threads[i].start();
+        }
+        long moves = 0;
+        long games = 0;
+        long errors = 0;
+        long[] all = new long[0];
+        for (int i = 0; i < nbConnection; i++) {
+            threads[i].join();
+            Client c = clients[i];
+            moves += c.nbMove;
+            games += c.nbGame;
+            errors += c.nbError;
+            int from = all.length;
+            all = Arrays.copyOf(all, from + c.nbMove);
+            System.arraycopy(c.latencies, 0, all, from, c.nbMove);
+            c.close();
+        }
+        Arrays.sort(all);
+        System.out.println(String.format("%d moves (%.0f moves/s), %d games finished, %d errors",
+                moves, moves / (double) seconds, games, errors));
+        if (all.length > 0) {
+            System.out.println(String.format("latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                    percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3, all[all.length - 1] / 1e3));
+        }
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(p * (sorted.length - 1)))];
+    }
+
+    /**
+     * A connection playing its sessions in turn
+     */
+    private static final class Client {
+
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+        private final Random random;
+        private int[] sessions = new int[16];
+        private int nbSession;
+        private long[] latencies = new long[1024];
+        private int nbMove;
+        private int nbGame;
+        private int nbError;
+
+        private Client(int port, int seed) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            this.socket.setTcpNoDelay(true);
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII));
+            this.random = new Random(seed);
+        }
+
+        private String request(String line) throws IOException {
+            out.println(line);
+            out.flush();
+            return in.readLine();
+        }
+
+        private void open() throws IOException {
+            String reply = request("NEW SQUARE " + ROW + " " + COL + " " + BOMB + " " + random.nextLong());
+            if (nbSession == sessions.length) {
+                sessions = Arrays.copyOf(sessions, nbSession * 2);
+            }
+            sessions[nbSession++] = Integer.parseInt(reply.substring(3));
+        }
+
+        private void play(long end) {
+            try {
+                int i = 0;
+                while (System.nanoTime() < end) {
+                    int id = sessions[i];
+                    i = (i + 1) % nbSession;
+                    long start = System.nanoTime();
+                    String reply = request("REVEAL " + id + " " + random.nextInt(ROW) + " " + random.nextInt(COL));
+                    long latency = System.nanoTime() - start;
+                    if (nbMove == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, nbMove * 2);
+                    }
+                    latencies[nbMove++] = latency;
+                    if (reply.startsWith("ERR")) {
+                        nbError++;
+                    } else if (!reply.startsWith("OK RUNNING")) {
+                        nbGame++;
+                        request("RESET " + id + " " + random.nextLong());
+                    }
+                }
+            } catch (IOException ex) {
+                nbError++;
+            }
+        }
+
+        private void close() throws IOException {
+            socket.close();
+        }
+    }
+}
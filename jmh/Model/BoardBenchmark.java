@@ -0,0 +1,151 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JMH benchmarks of the hot paths of the model, for each shape, size and
+ * density of bombs
+ *
+ * Run with : ant jmh [-Djmh.args="BoardBenchmark.leftClick -p size=100"]
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"square", "pyramid"})
+    public String shape;
+
+    /**
+     * Number of rows, the size of the base for a pyramid
+     */
+    @Param({"9", "100", "500", "2000"})
+    public int size;
+
+    @Param({"0.12", "0.20"})
+    public double density;
+
+    Board board;
+    int opening; // case in the middle, kept free of bombs
+    private final int[] out = new int[Board.MAX_NEIGHBOURS];
+    private final BombRandom random = new XoroshiroRandom(42);
+    private int index;
+    private long seed;
+
+    /**
+     * A board with its bombs placed, nothing discovered
+     */
+    @Setup(Level.Trial)
+    public void createBoard() {
+        board = "pyramid".equals(shape) ? new BoardPyramid(size, 0) : new Board2D(size, size, 0);
+        board.nbBomb = (int) (board.getNbCase() * density);
+        int row = board.getNbRow() / 2;
+        opening = board.indexOf(row, board.getNbCol(row) / 2);
+        board.resetBoard(seed, opening);
+    }
+
+    /**
+     * A board just reset before each call, for the benchmarks discovering
+     * cases. The reset is not measured
+     */
+    @State(Scope.Thread)
+    public static class FreshBoard {
+
+        Board board;
+        int row;
+        int col;
+        private long seed;
+
+        @Setup(Level.Invocation)
+        public void reset(BoardBenchmark b) {
+            board = b.board;
+            board.resetBoard(++seed, b.opening);
+            row = board.rowOf(b.opening);
+            col = board.colOf(b.opening);
+        }
+    }
+
+    /**
+     * First click in the middle of the board, cascading through the empty area
+     */
+    @Benchmark
+    public int leftClick(FreshBoard fresh) {
+        fresh.board.leftClick(fresh.row, fresh.col);
+        return fresh.board.getNbHidden();
+    }
+
+    /**
+     * Discover the neighbours of a case, as {@link Case#discoverNeighbours()}
+     */
+    @Benchmark
+    public int discoverNeighbours(FreshBoard fresh) {
+        fresh.board.getCase(fresh.row, fresh.col).discoverNeighbours();
+        return fresh.board.getNbHidden();
+    }
+
+    /**
+     * Put a flag on a hidden case and remove it
+     */
+    @Benchmark
+    public int rightClick() {
+        board.rightClick(0, 0);
+        board.rightClick(0, 0);
+        return board.getNbFlag();
+    }
+
+    @Benchmark
+    public boolean gameWon() {
+        return board.gameWon();
+    }
+
+    /**
+     * Place the bombs on an empty board, the clear of the cases is measured
+     * too
+     */
+    @Benchmark
+    public int generateBomb() {
+        board.cells.clear();
+        board.generateBomb(random);
+        return board.nbBomb;
+    }
+
+    /**
+     * Place the bombs and count the bombs around every case, as a reset of
+     * the board does
+     */
+    @Benchmark
+    public long resetBoard() {
+        board.resetBoard(++seed, opening);
+        return board.getSeed();
+    }
+
+    /**
+     * Neighbours of the cases one after the other, which replace the lists of
+     * neighbours the cases used to keep (setUpNeighbours)
+     */
+    @Benchmark
+    public int neighbours() {
+        index = index + 1 == board.getNbCase() ? 0 : index + 1;
+        return board.neighbours(index, out);
+    }
+}
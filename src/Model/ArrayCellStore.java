@@ -0,0 +1,45 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Store the cases in a byte array, one byte per case
+ */
+public class ArrayCellStore extends CellStore {
+
+    private final byte[] cells;
+
+    public ArrayCellStore(int size) {
+        this.cells = new byte[size];
+    }
+
+    @Override
+    public int size() {
+        return cells.length;
+    }
+
+    @Override
+    public int get(int index) {
+        return cells[index] & 0xFF;
+    }
+
+    @Override
+    public void set(int index, int bits) {
+        cells[index] = (byte) bits;
+    }
+
+    @Override
+    public long footprint() {
+        return cells.length;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+}
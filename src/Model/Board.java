@@ -10,22 +10,87 @@ import static Model.CaseState.EMPTY;
 import static Model.CaseState.FLAGGED;
 import static Model.CaseState.TRAPPED;
 import static Model.CaseState.UNDISCOVERED;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Observable;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Class Board2D representing the model side of the game
  */
 public abstract class Board extends Observable {
 
-    protected List<List<Case>> board;
+    /**
+     * Maximum number of neighbours a case can have
+     */
+    public static final int MAX_NEIGHBOURS = 8;
+    /**
+     * Maximum number of cases tracked between two notifications, beyond it
+     * the observers redraw the whole board : the tracking stays small on a
+     * board larger than the heap
+     */
+    public static final int MAX_CHANGED = 1 << 16;
+
+    /**
+     * State of every case, indexed by {@link #indexOf(int, int)}
+     */
+    protected CellStore cells;
+    private CellStore givenStore; // storage handed by a subclass to the first allocation
+    /**
+     * Index of the first case of each row, the last entry being the total
+     * number of cases
+     */
+    protected int[] rowStart;
+    /**
+     * Buffer used to compute the neighbours of a case without allocation
+     */
+    private final int[] around = new int[MAX_NEIGHBOURS];
+    /**
+     * Engine discovering the empty areas
+     */
+    protected final RevealEngine revealEngine = new RevealEngine(this);
+    /**
+     * Cases changed since the last notification, sent to the observers by
+     * {@link #update()}
+     */
+    private final IntSet changed = new IntSet();
+    private int maxChanged;
+    private boolean allChanged;
+    /**
+     * While a batch is open the notifications are delayed until its end
+     */
+    private int batchDepth;
+    private boolean pendingUpdate;
     protected int nbBomb; //Number of bomb
+    /**
+     * Counters maintained by {@link #setCell(int, int)} so that the win check
+     * does not need to scan the board
+     */
     protected int nbFlag;
+    protected int nbHidden; //Number of cases not visible
+    protected int nbFlaggedBomb; //Number of bombs correctly flagged
     private GameTimer timer;
     private int score;
-
+    private long finishTime; // milliseconds spent to win the last game
+    /**
+     * Seed of the last bomb placement and case kept free of bombs (with its
+     * neighbours), enough to rebuild the same board
+     */
+    private long seed;
+    private int opening = -1;
+    private boolean placed; // false until the bombs are on the grid
+    /**
+     * Kind of generator drawing the bombs from the seed
+     */
+    private BombRandom.Kind randomKind = BombRandom.Kind.XOROSHIRO;
+    /**
+     * Generator of the bombs placed by the first click, null for a plain
+     * random placement
+     */
+    private NoGuessGenerator generator;
+    /**
+     * Journal recording the moves, null if they are not recorded
+     */
+    private MoveJournal journal;
     /**
      * Represents the state of the game
      */
@@ -35,14 +100,37 @@ public abstract class Board extends Observable {
         return state;
     }
 
-    public List<List<Case>> getBoard() {
-        return board;
+    /**
+     * Return the number of rows of the board
+     *
+     * @return
+     */
+    public int getNbRow() {
+        return rowStart.length - 1;
+    }
+
+    /**
+     * Return the number of cases in the given row
+     *
+     * @param row
+     * @return
+     */
+    public int getNbCol(int row) {
+        return rowStart[row + 1] - rowStart[row];
     }
 
     public int getNbFlag() {
         return nbFlag;
     }
 
+    public int getNbBomb() {
+        return nbBomb;
+    }
+
+    public int getNbHidden() {
+        return nbHidden;
+    }
+
     public GameTimer getTimer() {
         return timer;
     }
@@ -52,7 +140,44 @@ public abstract class Board extends Observable {
     }
 
     /**
-     * Constructor
+     * Return the time spent to win the last game, to rank the players
+     *
+     * @return the time in milliseconds
+     */
+    public long getFinishTime() {
+        return finishTime;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Return the case kept free of bombs by the last placement
+     *
+     * @return its index, -1 if none
+     */
+    public int getOpening() {
+        return opening;
+    }
+
+    public BombRandom.Kind getRandomKind() {
+        return randomKind;
+    }
+
+    /**
+     * Choose the generator drawing the bombs from the seed, from the next
+     * placement on
+     *
+     * @param randomKind
+     */
+    public void setRandomKind(BombRandom.Kind randomKind) {
+        this.randomKind = randomKind;
+    }
+
+    /**
+     * Constructor of an empty board : the bombs are placed by the first left
+     * click, neither on the case clicked nor around it
      *
      * @param row Number of rows in the playing grid
      * @param col Number of columns in the playing grid
@@ -60,13 +185,51 @@ public abstract class Board extends Observable {
      */
     public Board(int row, int col, int bomb) {
         this.nbBomb = bomb;
-        this.nbFlag = 0;
         this.state = GameState.RUNNING;
-        this.board = createBoard(row, col);
+        createBoard(row, col);
         this.timer = new GameTimer();
+        this.seed = newSeed();
+    }
 
-        generateBomb(board);
-        setUpNeighbours();
+    /**
+     * Constructor placing the bombs from a given seed
+     *
+     * @param row Number of rows in the playing grid
+     * @param col Number of columns in the playing grid
+     * @param bomb Number of bomb to be generated on the grid
+     * @param seed Seed of the bomb placement
+     */
+    public Board(int row, int col, int bomb, long seed) {
+        this(row, col, bomb);
+        placeBombs(seed);
+    }
+
+    /**
+     * Constructor of an empty board keeping its cases in the given storage
+     * (e.g. a file), whose content is left as it is
+     *
+     * @param row Number of rows in the playing grid
+     * @param col Number of columns in the playing grid
+     * @param bomb Number of bomb to be generated on the grid
+     * @param store storage of exactly the number of cases of the board
+     */
+    protected Board(int row, int col, int bomb, CellStore store) {
+        this.givenStore = store;
+        this.nbBomb = bomb;
+        this.state = GameState.RUNNING;
+        createBoard(row, col);
+        this.timer = new GameTimer();
+        this.seed = newSeed();
+    }
+
+    /**
+     * Keep the cases of the next allocation in the given storage, if it has
+     * the number of cases of the board
+     *
+     * @param store
+     */
+    protected void useStore(CellStore store) {
+        this.givenStore = store;
     }
 
     /**
@@ -74,35 +237,250 @@ public abstract class Board extends Observable {
      *
      * @param row
      * @param col
-     * @return
      */
-    protected List<List<Case>> createBoard(int row, int col) {
-        List<List<Case>> grid = new ArrayList<>();
+    protected void createBoard(int row, int col) {
+        int[] start = new int[row + 1];
         for (int i = 0; i < row; i++) {
-            grid.add(new ArrayList<>());
-            for (int j = 0; j < col; j++) {
-                grid.get(i).add(new Case());
-            }
+            start[i + 1] = start[i] + col;
         }
-        return grid;
+        allocate(start);
     }
 
     /**
-     * Reset the board to the initial state (empty, ready to play)
+     * Allocate the storage of the cases for the given rows
+     *
+     * @param rowStart index of the first case of each row, followed by the
+     * total number of cases
      */
-    public void resetBoard() {
-        for (List<Case> list : board) {
-            for (Case c : list) {
-                c.reset();
-            }
+    protected void allocate(int[] rowStart) {
+        this.rowStart = rowStart;
+        int size = rowStart[rowStart.length - 1];
+        if (givenStore != null && givenStore.size() == size) {
+            this.cells = givenStore;
+        } else {
+            this.cells = new ArrayCellStore(size);
         }
+        this.givenStore = null;
+        this.maxChanged = Math.max(16, Math.min(cells.size() / 4, MAX_CHANGED));
+        resetCounters();
+        markAllChanged();
+    }
+
+    /**
+     * Set the counters for a board where every case is hidden and unflagged
+     */
+    protected void resetCounters() {
+        this.nbHidden = cells.size();
         this.nbFlag = 0;
-        this.state = GameState.RUNNING;
-        generateBomb(board);
-        setUpNeighbours();
+        this.nbFlaggedBomb = 0;
+    }
+
+    /**
+     * Overwrite the bits of a case, keeping the counters up to date
+     *
+     * @param index
+     * @param bits
+     */
+    protected void setCell(int index, int bits) {
+        int before = cells.get(index);
+        if (before != bits) {
+            cells.set(index, bits);
+            count(before, -1);
+            count(bits, 1);
+            markChanged(index);
+        }
+    }
+
+    /**
+     * Record that a case must be redrawn at the next notification
+     *
+     * @param index
+     */
+    protected void markChanged(int index) {
+        if (allChanged) {
+            return;
+        }
+        if (changed.size() >= maxChanged) {
+            markAllChanged();
+        } else {
+            changed.add(index);
+        }
+    }
+
+    /**
+     * Record that the whole board must be redrawn at the next notification
+     */
+    protected void markAllChanged() {
+        allChanged = true;
+        forgetChanged();
+    }
+
+    /**
+     * Forget the cases recorded by markChanged
+     */
+    private void forgetChanged() {
+        changed.clear();
+    }
+
+    /**
+     * Set or clear bits on a case, keeping the counters up to date
+     *
+     * @param index
+     * @param mask one or several of the CellStore bits
+     * @param value
+     */
+    protected void setCell(int index, int mask, boolean value) {
+        int bits = cells.get(index);
+        setCell(index, value ? bits | mask : bits & ~mask);
+    }
+
+    /**
+     * Add the contribution of a case to the counters
+     *
+     * @param bits the bits of the case
+     * @param delta 1 to add the case, -1 to remove it
+     */
+    private void count(int bits, int delta) {
+        if ((bits & CellStore.VISIBLE) == 0) {
+            nbHidden += delta;
+        }
+        if ((bits & CellStore.FLAG) != 0) {
+            nbFlag += delta;
+            if ((bits & CellStore.TRAP) != 0) {
+                nbFlaggedBomb += delta;
+            }
+        }
+    }
+
+    /**
+     * Reset the board to the initial state (empty, ready to play), the bombs
+     * are placed by the first left click
+     */
+    public void resetBoard() {
+        clear();
+        this.seed = newSeed();
+        newGame();
         this.update();
     }
 
+    /**
+     * Reset the board, placing the bombs from the given seed
+     *
+     * @param seed
+     */
+    public void resetBoard(long seed) {
+        resetBoard(seed, -1);
+    }
+
+    /**
+     * Reset the board, placing the bombs from the given seed but neither on
+     * a case nor around it, so that clicking it first opens an area
+     *
+     * @param seed
+     * @param opening index of the case, -1 to place the bombs anywhere
+     */
+    public void resetBoard(long seed, int opening) {
+        clear();
+        placeBombs(seed, opening);
+        newGame();
+        this.update();
+    }
+
+    /**
+     * Hide every case and remove the bombs
+     */
+    private void clear() {
+        cells.clear();
+        resetCounters();
+        markAllChanged();
+        this.state = GameState.RUNNING;
+        this.placed = false;
+        this.opening = -1;
+    }
+
+    /**
+     * Finish the restoration of a saved game, whose cases are already in
+     * place
+     *
+     * @param seed seed of the saved placement
+     * @param opening case kept free of bombs, -1 if none
+     * @param placed false if the bombs were still to be placed by the first
+     * click
+     * @param state state of the saved game
+     */
+    protected void restore(long seed, int opening, boolean placed, GameState state) {
+        this.seed = seed;
+        this.opening = opening;
+        this.placed = placed;
+        this.state = state;
+        markAllChanged();
+        if (state == GameState.WON) {
+            this.finishTime = timer.getElapsedMillis();
+            this.score = timer.getValueInt();
+        }
+    }
+
+    /**
+     * Draw the seed of a board when none is given, without contention between
+     * the threads
+     *
+     * @return
+     */
+    private static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Return true once the bombs are on the grid
+     *
+     * @return
+     */
+    public boolean isPlaced() {
+        return placed;
+    }
+
+    /**
+     * Choose how the first click places the bombs
+     *
+     * @param generator generator of boards needing no guess, null for a
+     * plain random placement
+     */
+    public void setGenerator(NoGuessGenerator generator) {
+        this.generator = generator;
+    }
+
+    /**
+     * Record the moves in a journal, from the next move on : attach it before
+     * the first move of a game to be able to replay it
+     *
+     * @param journal null to stop recording
+     */
+    public void setJournal(MoveJournal journal) {
+        this.journal = journal;
+        newGame();
+    }
+
+    /**
+     * Record in the journal a move accepted, before it is applied
+     *
+     * @param move
+     * @param index the case played
+     */
+    private void record(GameEngine.Move move, int index) {
+        if (journal != null) {
+            journal.record(move, index);
+        }
+    }
+
+    /**
+     * Tell the journal that a new game starts
+     */
+    private void newGame() {
+        if (journal != null) {
+            journal.newGame(this);
+        }
+    }
+
     /**
      * Methode to redine the board properties when changing the difficulty level
      *
@@ -112,17 +490,61 @@ public abstract class Board extends Observable {
      */
     public void changeLevel(int row, int col, int nbomb) {
         this.nbBomb = nbomb;
-        this.nbFlag = 0;
         this.state = GameState.RUNNING;
-        this.board = createBoard(row, col);
-        generateBomb(board);
-        setUpNeighbours();
+        createBoard(row, col);
+        this.placed = false;
+        this.opening = -1;
+        this.seed = newSeed();
+        newGame();
+    }
+
+    /**
+     * Compute the neighbours of a case
+     *
+     * @param index the index of the case
+     * @param out array of at least {@link #MAX_NEIGHBOURS} entries receiving
+     * the indexes of the neighbours
+     * @return the number of neighbours written in out
+     */
+    public abstract int neighbours(int index, int[] out);
+
+    /**
+     * Return the flat index of a case
+     *
+     * @param row
+     * @param col
+     * @return
+     */
+    public int indexOf(int row, int col) {
+        return rowStart[row] + col;
+    }
+
+    /**
+     * Return the row of a case from its flat index
+     *
+     * @param index
+     * @return
+     */
+    public int rowOf(int index) {
+        int row = Arrays.binarySearch(rowStart, index);
+        if (row < 0) {
+            return -row - 2;
+        }
+        while (row < rowStart.length - 1 && rowStart[row + 1] == index) {
+            row++; // Skip the empty rows
+        }
+        return row;
     }
 
     /**
-     * Set the neighbours for every cases
+     * Return the column of a case from its flat index
+     *
+     * @param index
+     * @return
      */
-    public abstract void setUpNeighbours();
+    public int colOf(int index) {
+        return index - rowStart[rowOf(index)];
+    }
 
     /**
      * Set a flag on the grid according to the coordinates entered in the
@@ -137,23 +559,23 @@ public abstract class Board extends Observable {
             return; // Do Nothing
         }
         Case c = this.getCase(row, col);
+        boolean flag;
 
         switch (c.getState()) {
             case FLAGGED:
-                c.setFlag(false);
-                this.nbFlag--;
+                flag = false;
                 break;
             case UNDISCOVERED:
-                c.setFlag(true);
-                this.nbFlag++;
+                flag = true;
                 break;
             case TRAPPED:
-                c.setFlag(true);
-                this.nbFlag++;
+                flag = true;
                 break;
             default:
                 return;
         }
+        record(GameEngine.Move.FLAG, c.getIndex());
+        c.setFlag(flag);
         if (gameWon()) {
             this.state = GameState.WON;
             this.manageWin();
@@ -169,6 +591,12 @@ public abstract class Board extends Observable {
      */
     public void leftClick(int row, int col) {
 
+        if (gameFinished()) {
+            return; // Do Nothing
+        }
+        if (!placed) {
+            placeFirstClick(indexOf(row, col));
+        }
         Case c = this.getCase(row, col);
 
         switch (c.getState()) {
@@ -177,15 +605,14 @@ public abstract class Board extends Observable {
             case EMPTY:
                 return; // Do Nothing
             case TRAPPED:
+                record(GameEngine.Move.REVEAL, c.getIndex());
                 this.state = GameState.LOST;
-                c.setState(CaseState.TRIGGERED);
+                setCell(c.getIndex(), CellStore.TRIGGERED, true);
                 this.manageDefeat();
                 break;
             case UNDISCOVERED:
-                c.discover();
-                if (!(c.computeNbBomb() > 0)) {
-                    c.discoverNeighbours();
-                }
+                record(GameEngine.Move.REVEAL, c.getIndex());
+                revealEngine.reveal(c.getIndex());
                 if (this.gameWon()) {
                     this.state = GameState.WON;
                     manageWin();
@@ -197,6 +624,50 @@ public abstract class Board extends Observable {
         this.update();
     }
 
+    /**
+     * Manage a chord (middle or both buttons) on a discovered number : when
+     * as many neighbours are flagged as the number says, all the other hidden
+     * neighbours are revealed at once, with a single notification. A wrong
+     * flag makes the chord hit a bomb and lose the game
+     *
+     * @param row the row id of the case clicked
+     * @param col the col id of the case clicked
+     */
+    public void chord(int row, int col) {
+        int index = indexOf(row, col);
+        if (gameFinished() || cells.getState(index) != CaseState.DISCOVERED) {
+            return; // Do Nothing
+        }
+        int n = neighbours(index, around);
+        int flags = 0;
+        for (int k = 0; k < n; k++) {
+            if (cells.is(around[k], CellStore.FLAG)) {
+                flags++;
+            }
+        }
+        if (flags != cells.getNbBomb(index)) {
+            return;
+        }
+        record(GameEngine.Move.CHORD, index);
+        for (int k = 0; k < n; k++) {
+            int a = around[k];
+            if (cells.getState(a) == CaseState.TRAPPED) {
+                this.state = GameState.LOST;
+                setCell(a, CellStore.TRIGGERED, true);
+            }
+        }
+        if (this.state == GameState.LOST) {
+            this.manageDefeat();
+        } else {
+            revealEngine.revealNeighbours(index);
+            if (this.gameWon()) {
+                this.state = GameState.WON;
+                manageWin();
+            }
+        }
+        this.update();
+    }
+
     /**
      * Game won if all bombs are flagged or if every case undiscovered remaining
      * are bombs
@@ -204,9 +675,30 @@ public abstract class Board extends Observable {
      * @return true if the game is won, false if not yet
      */
     protected boolean gameWon() {
-        int nbUndiscovered = this.nbAllUndiscovered();
-        return (nbUndiscovered == this.nbBomb
-                || (nbBombsFlagged() == this.nbBomb && this.nbFlag == this.nbBomb)); // Maybe remove this
+        return (this.nbHidden == this.nbBomb
+                || (this.nbFlaggedBomb == this.nbBomb && this.nbFlag == this.nbBomb));
+    }
+
+    /**
+     * Cross-check the counters against a full scan of the board. Called
+     * through assert, so only run when assertions are enabled (-ea)
+     *
+     * @return true if the counters are right
+     * @throws IllegalStateException if a counter is wrong
+     */
+    protected boolean checkCounters() {
+        int flags = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.is(i, CellStore.FLAG)) {
+                flags++;
+            }
+        }
+        if (nbHidden != nbAllUndiscovered() || nbFlaggedBomb != nbBombsFlagged() || nbFlag != flags) {
+            throw new IllegalStateException("Counters out of sync : hidden " + nbHidden + "/" + nbAllUndiscovered()
+                    + ", flagged bombs " + nbFlaggedBomb + "/" + nbBombsFlagged()
+                    + ", flags " + nbFlag + "/" + flags);
+        }
+        return true;
     }
 
     /**
@@ -216,12 +708,9 @@ public abstract class Board extends Observable {
      */
     protected int nbBombsFlagged() {
         int nb = 0;
-        for (int row = 0; row < this.getBoard().size(); row++) {
-            for (int col = 0; col < this.getBoard().get(row).size(); col++) {
-                Case c = this.getCase(row, col);
-                if (c.isTrap() && c.isFlag()) {
-                    nb++;
-                }
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.is(i, CellStore.TRAP | CellStore.FLAG)) {
+                nb++;
             }
         }
         return nb;
@@ -244,29 +733,56 @@ public abstract class Board extends Observable {
         if (this.state == GameState.LOST) {
             discoverAll();
         }
+        if (journal != null) {
+            journal.endGame();
+        }
     }
 
     /**
      * Manage the victory
      */
     protected void manageWin() {
+        // stop the clock now so that the time does not include the refresh
+        this.getTimer().stop();
+        this.finishTime = this.getTimer().getElapsedMillis();
         this.score = this.getTimer().getValueInt();
         if (this.state == GameState.WON) {
             this.discoverAll();
         }
+        if (journal != null) {
+            journal.endGame();
+        }
     }
 
     /**
      * Discover all the cases
      */
     protected void discoverAll() {
-        for (int row = 0; row < this.getBoard().size(); row++) {
-            for (int col = 0; col < this.getBoard().get(row).size(); col++) {
-                this.getCase(row, col).discover();
-            }
+        for (int i = 0; i < cells.size(); i++) {
+            discover(i);
         }
     }
 
+    /**
+     * Discover a case, the number of bombs around it being already known
+     *
+     * @param index
+     */
+    protected void discover(int index) {
+        setCell(index, CellStore.VISIBLE, true);
+    }
+
+    /**
+     * Discover the neighbours of a case, cascading through the empty ones
+     *
+     * @param index
+     * @return the number of cases newly revealed
+     */
+    protected int discoverNeighbours(int index) {
+        revealEngine.revealNeighbours(index);
+        return revealEngine.getNbRevealed();
+    }
+
     /**
      * Return the number of cases not visible
      *
@@ -274,33 +790,148 @@ public abstract class Board extends Observable {
      */
     protected int nbAllUndiscovered() {
         int counter = 0;
-        for (int row = 0; row < this.getBoard().size(); row++) {
-            for (int col = 0; col < this.getBoard().get(row).size(); col++) {
-                if (!this.getCase(row, col).isVisible()) {
-                    counter++;
-                }
+        for (int i = 0; i < cells.size(); i++) {
+            if (!cells.is(i, CellStore.VISIBLE)) {
+                counter++;
             }
         }
         return counter;
     }
 
+    /**
+     * Put the bombs on the grid when the first case is clicked, away from it
+     *
+     * @param index the case clicked
+     */
+    protected void placeFirstClick(int index) {
+        if (generator != null) {
+            generator.generate(this, rowOf(index), colOf(index), seed);
+        } else {
+            placeBombs(seed, index);
+        }
+        if (journal != null) {
+            journal.placed();
+        }
+    }
+
+    /**
+     * Put the bombs on the grid from the given seed, and compute the number of
+     * bombs around every case, so that discovering a case is a simple lookup
+     *
+     * @param seed
+     */
+    protected void placeBombs(long seed) {
+        placeBombs(seed, -1);
+    }
+
+    /**
+     * Put the bombs on the grid from the given seed, away from a case
+     *
+     * @param seed
+     * @param opening index of the case kept free with its neighbours, -1 for
+     * none
+     */
+    protected void placeBombs(long seed, int opening) {
+        this.seed = seed;
+        this.opening = opening;
+        this.placed = true;
+        if (opening < 0) {
+            this.nbBomb = Math.min(nbBomb, cells.size());
+            generateBomb(randomKind.create(seed));
+        } else {
+            generateBomb(randomKind.create(seed), opening);
+        }
+        computeNbBombs();
+    }
+
+    /**
+     * Compute the number of bombs around every case in one pass, by
+     * incrementing the neighbours of each bomb
+     */
+    protected void computeNbBombs() {
+        for (int i = 0; i < cells.size(); i++) {
+            cells.setNbBomb(i, 0);
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.is(i, CellStore.TRAP)) {
+                int n = neighbours(i, around);
+                for (int k = 0; k < n; k++) {
+                    cells.setNbBomb(around[k], cells.getNbBomb(around[k]) + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add or remove a bomb on a case, updating the number of bombs of its
+     * neighbours
+     *
+     * @param index
+     * @param trap
+     */
+    protected void setTrap(int index, boolean trap) {
+        if (cells.is(index, CellStore.TRAP) == trap) {
+            return;
+        }
+        setCell(index, CellStore.TRAP, trap);
+        int n = neighbours(index, around);
+        for (int k = 0; k < n; k++) {
+            cells.setNbBomb(around[k], cells.getNbBomb(around[k]) + (trap ? 1 : -1));
+            markChanged(around[k]);
+        }
+    }
+
     /**
      * Method to generate randomly a list of bombs and put it on the grid
      *
-     * @param board
+     * Uses Floyd's sampling over the case indexes : exactly one draw per bomb,
+     * whatever the density of the board, and every set of cases has the same
+     * probability
+     *
+     * @param r
      */
-    protected void generateBomb(List<List<Case>> board) {
-        Random r = new Random();
-        int i_random, j_random;
-        for (int i = 0; i < nbBomb; i++) {
-            do {
-                i_random = r.nextInt(board.size());
-                j_random = r.nextInt(board.get(i_random).size());
-            } while (board.get(i_random).get(j_random).isTrap());
-            System.out.println(i_random + "   " + j_random);
-            board.get(i_random).get(j_random).setTrap(true);
+    protected void generateBomb(BombRandom r) {
+        int size = cells.size();
+        for (int j = size - nbBomb; j < size; j++) {
+            int t = r.nextInt(j + 1);
+            setCell(cells.is(t, CellStore.TRAP) ? j : t, CellStore.TRAP, true);
         }
-        System.out.println("");
+    }
+
+    /**
+     * Same as {@link #generateBomb(BombRandom)} over the cases out of the
+     * opening, the number of bombs is reduced if they do not fit
+     *
+     * @param r
+     * @param opening index of the case kept free with its neighbours
+     */
+    protected void generateBomb(BombRandom r, int opening) {
+        int[] excluded = new int[MAX_NEIGHBOURS + 1];
+        int n = neighbours(opening, excluded);
+        excluded[n++] = opening;
+        Arrays.sort(excluded, 0, n);
+        int size = cells.size() - n;
+        this.nbBomb = Math.min(nbBomb, size);
+        for (int j = size - nbBomb; j < size; j++) {
+            int t = allowed(r.nextInt(j + 1), excluded, n);
+            setCell(cells.is(t, CellStore.TRAP) ? allowed(j, excluded, n) : t, CellStore.TRAP, true);
+        }
+    }
+
+    /**
+     * Return the index of the i-th case out of the excluded ones, without
+     * listing the allowed cases : fits boards of any size
+     *
+     * @param i
+     * @param excluded the excluded indexes, sorted
+     * @param n number of excluded indexes
+     * @return
+     */
+    private static int allowed(int i, int[] excluded, int n) {
+        for (int k = 0; k < n && excluded[k] <= i; k++) {
+            i++;
+        }
+        return i;
     }
 
     /**
@@ -308,19 +939,55 @@ public abstract class Board extends Observable {
      *
      * @param i
      * @param j
-     * @return The case according to the coordinates
+     * @return A view on the case according to the coordinates
      */
     public Case getCase(int i, int j) {
-        return this.board.get(i).get(j);
+        return new Case(this, indexOf(i, j));
     }
 
     /**
      * Ask the view to update the GUI content
+     *
+     * The observers receive the indexes of the cases changed since the last
+     * notification as an int[], or null if the whole board changed or more
+     * than {@link #MAX_CHANGED} cases (a quarter of the board if smaller)
+     * changed
      */
     public void update() {
+        if (batchDepth > 0) {
+            pendingUpdate = true;
+            return;
+        }
+        assert checkCounters();
+        if (countObservers() == 0) {
+            forgetChanged(); // Nobody to tell, e.g. a headless game
+            allChanged = false;
+            return;
+        }
+        int[] cases = allChanged ? null : changed.toArray();
+        forgetChanged();
+        allChanged = false;
         // Notify the view to update
         setChanged();
-        notifyObservers();
+        notifyObservers(cases);
+    }
+
+    /**
+     * Start a batch of actions : the observers will be notified once, at the
+     * end of the batch, of all the cases changed
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * End a batch of actions, notifying the observers if something changed
+     */
+    public void endBatch() {
+        if (--batchDepth == 0 && pendingUpdate) {
+            pendingUpdate = false;
+            update();
+        }
     }
 
     /**
@@ -329,23 +996,37 @@ public abstract class Board extends Observable {
      * @return
      */
     public int getNbCase() {
-        int cmpt = 0;
-        for (int i = 0; i < this.board.size(); i++) {
-            for (int j = 0; j < this.board.get(i).size(); j++) {
-                cmpt++;
-            }
-        }
-        return cmpt;
+        return cells.size();
+    }
+
+    /**
+     * Return the number of bytes used to store the board
+     *
+     * @return
+     */
+    public long getMemoryFootprint() {
+        return cells.footprint() + 4L * rowStart.length;
+    }
+
+    /**
+     * Return the average number of bytes used to store a case
+     *
+     * @return
+     */
+    public double getBytesPerCase() {
+        return cells.size() == 0 ? 0 : (double) getMemoryFootprint() / cells.size();
     }
 
     @Override
     public String toString() {
-        String r = "";
-        for (List<Case> row : board) {
-            r = row.stream().map((c) -> c + " ").reduce(r, String::concat);
-            r += "\n";
+        StringBuilder r = new StringBuilder();
+        for (int row = 0; row < getNbRow(); row++) {
+            for (int col = 0; col < getNbCol(row); col++) {
+                r.append(cells.getState(indexOf(row, col))).append(' ');
+            }
+            r.append('\n');
         }
-        return r;
+        return r.toString();
     }
 
 }
@@ -8,10 +8,10 @@ package Model;
 /**
  * Class Board2D representing the model side of the game
  */
-public final class Board2D extends Board {
+public class Board2D extends Board {
 
     /**
-     * Constructor
+     * Constructor, the bombs are placed by the first left click
      *
      * @param row Number of rows in the playing grid
      * @param col Number of columns in the playing grid
@@ -22,37 +22,77 @@ public final class Board2D extends Board {
     }
 
     /**
-     * Set the neighbours for every cases
+     * Constructor placing the bombs from a given seed
+     *
+     * @param row Number of rows in the playing grid
+     * @param col Number of columns in the playing grid
+     * @param bomb Number of bomb to be generated on the grid
+     * @param seed Seed of the bomb placement
+     */
+    public Board2D(int row, int col, int bomb, long seed) {
+        super(row, col, bomb, seed);
+    }
+
+    /**
+     * Constructor of an empty board keeping its cases in the given storage
+     *
+     * @param row Number of rows in the playing grid
+     * @param col Number of columns in the playing grid
+     * @param bomb Number of bomb to be generated on the grid
+     * @param store storage of row * col cases
+     */
+    protected Board2D(int row, int col, int bomb, CellStore store) {
+        super(row, col, bomb, store);
+    }
+
+    /**
+     * Compute the 8 neighbours of a case (less on the borders)
+     *
+     * @param index the index of the case
+     * @param out receives the indexes of the neighbours
+     * @return the number of neighbours
      */
     @Override
-    public void setUpNeighbours() {
-        for (int row = 0; row < this.getBoard().size(); row++) {
-            for (int col = 0; col < this.getBoard().get(row).size(); col++) {
-                if (row < this.getBoard().size() - 1) {
-                    board.get(row).get(col).addNeighbour(board.get(row + 1).get(col));
-                    if (col < this.getBoard().get(row).size() - 1) {
-                        board.get(row).get(col).addNeighbour(board.get(row + 1).get(col + 1));
-                    }
-                    if (col > 0) {
-                        board.get(row).get(col).addNeighbour(board.get(row + 1).get(col - 1));
-                    }
-                }
-                if (row > 0) {
-                    board.get(row).get(col).addNeighbour(board.get(row - 1).get(col));
-                    if (col < this.getBoard().get(row).size() - 1) {
-                        board.get(row).get(col).addNeighbour(board.get(row - 1).get(col + 1));
-                    }
-                    if (col > 0) {
-                        board.get(row).get(col).addNeighbour(board.get(row - 1).get(col - 1));
-                    }
-                }
-                if (col < this.getBoard().get(row).size() - 1) {
-                    board.get(row).get(col).addNeighbour(board.get(row).get(col + 1));
-                }
-                if (col > 0) {
-                    board.get(row).get(col).addNeighbour(board.get(row).get(col - 1));
-                }
+    public int neighbours(int index, int[] out) {
+        int nbCol = getNbCol(0);
+        int row = index / nbCol;
+        int col = index - row * nbCol;
+        int nb = 0;
+        if (row < getNbRow() - 1) {
+            out[nb++] = index + nbCol;
+            if (col < nbCol - 1) {
+                out[nb++] = index + nbCol + 1;
             }
+            if (col > 0) {
+                out[nb++] = index + nbCol - 1;
+            }
+        }
+        if (row > 0) {
+            out[nb++] = index - nbCol;
+            if (col < nbCol - 1) {
+                out[nb++] = index - nbCol + 1;
+            }
+            if (col > 0) {
+                out[nb++] = index - nbCol - 1;
+            }
+        }
+        if (col < nbCol - 1) {
+            out[nb++] = index + 1;
         }
+        if (col > 0) {
+            out[nb++] = index - 1;
+        }
+        return nb;
+    }
+
+    /**
+     * All the rows have the same length
+     *
+     * @param index
+     * @return
+     */
+    @Override
+    public int rowOf(int index) {
+        return index / getNbCol(0);
     }
 }
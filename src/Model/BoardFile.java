@@ -0,0 +1,298 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Save and load a game in a compact binary file
+ *
+ * Format (version 1, big endian) :
+ * <pre>
+ * int     magic "MSWP"
+ * byte    version
+ * byte    shape : 0 square, 1 pyramid
+ * int     rows (size of the base for a pyramid)
+ * int     columns (0 for a pyramid)
+ * int     bombs
+ * byte    state : ordinal of GameState
+ * byte    1 if the bombs are placed, 0 if the first click places them
+ * byte    generator of the bombs : ordinal of BombRandom.Kind
+ * long    seed of the placement
+ * int     case kept free of bombs, -1 if none
+ * long    time spent, in milliseconds
+ * 4 sets  bombs, visible, flags, triggered : one case per bit
+ * </pre>
+ * Each set starts with its encoding, then the length of its data in bytes :
+ * 0 for the raw bits, 1 for the lengths of the runs of equal bits as varints,
+ * starting with a run of 0. The smaller one is written. The numbers of bombs
+ * around are not saved, they are computed again when loading.
+ */
+public class BoardFile {
+
+    private static final int MAGIC = 0x4D535750; // "MSWP"
+    private static final byte VERSION = 1;
+    private static final int HEADER = 4 + 1 + 1 + 4 + 4 + 4 + 1 + 1 + 1 + 8 + 4 + 8;
+    private static final byte RAW = 0;
+    private static final byte RUNS = 1;
+    private static final int[] SETS = {CellStore.TRAP, CellStore.VISIBLE, CellStore.FLAG, CellStore.TRIGGERED};
+    /**
+     * Largest board loaded, the cases being kept in an array
+     */
+    private static final long MAX_CASES = Integer.MAX_VALUE - 8;
+    /**
+     * Smallest size of a set : its encoding, its length and one varint
+     */
+    private static final int MIN_SET = 1 + 4 + 1;
+
+    private BoardFile() {
+    }
+
+    /**
+     * Write a game to a file, replacing it
+     *
+     * @param board
+     * @param file
+     * @throws IOException
+     */
+    public static void save(Board board, Path file) throws IOException {
+        ByteBuffer buffer = encode(board);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Read a game from a file
+     *
+     * @param file
+     * @return a Board2D or a BoardPyramid, with its timer stopped at the time
+     * saved
+     * @throws IOException if the file can not be read or is not a game
+     */
+    public static Board load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large for a game : " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // read it all
+            }
+            buffer.flip();
+            return decode(buffer);
+        }
+    }
+
+    /**
+     * Encode a game
+     *
+     * @param board
+     * @return the bytes of the file, ready to be written
+     */
+    public static ByteBuffer encode(Board board) {
+        int n = board.getNbCase();
+        byte[][] sets = new byte[SETS.length][];
+        byte[] encodings = new byte[SETS.length];
+        int size = HEADER;
+        for (int s = 0; s < SETS.length; s++) {
+            BitSet bits = new BitSet(n);
+            for (int i = 0; i < n; i++) {
+                if (board.cells.is(i, SETS[s])) {
+                    bits.set(i);
+                }
+            }
+            byte[] raw = Arrays.copyOf(bits.toByteArray(), (n + 7) / 8);
+            byte[] runs = runs(bits, n);
+            encodings[s] = runs.length < raw.length ? RUNS : RAW;
+            sets[s] = runs.length < raw.length ? runs : raw;
+            size += 1 + 4 + sets[s].length;
+        }
+        boolean pyramid = board instanceof BoardPyramid;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) (pyramid ? 1 : 0));
+        buffer.putInt(board.getNbRow());
+        buffer.putInt(pyramid ? 0 : board.getNbCol(0));
+        buffer.putInt(board.getNbBomb());
+        buffer.put((byte) board.getState().ordinal());
+        buffer.put((byte) (board.isPlaced() ? 1 : 0));
+        buffer.put((byte) board.getRandomKind().ordinal());
+        buffer.putLong(board.getSeed());
+        buffer.putInt(board.getOpening());
+        buffer.putLong(board.getTimer().getElapsedMillis());
+        for (int s = 0; s < SETS.length; s++) {
+            buffer.put(encodings[s]);
+            buffer.putInt(sets[s].length);
+            buffer.put(sets[s]);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode a game
+     *
+     * @param buffer the bytes of the file
+     * @return
+     * @throws IOException if the bytes are not a game
+     */
+    public static Board decode(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a minesweeper game");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unknown version of game file : " + version);
+            }
+            boolean pyramid = buffer.get() == 1;
+            int rows = buffer.getInt();
+            int cols = buffer.getInt();
+            int bombs = buffer.getInt();
+            GameState state = GameState.values()[buffer.get()];
+            boolean placed = buffer.get() == 1;
+            BombRandom.Kind kind = BombRandom.Kind.valueOf(buffer.get());
+            long seed = buffer.getLong();
+            int opening = buffer.getInt();
+            long elapsed = buffer.getLong();
+
+            // check the sizes before allocating anything from them
+            if (rows <= 0 || (pyramid ? cols != 0 : cols <= 0)) {
+                throw new IOException("Invalid size of board : " + rows + " x " + cols);
+            }
+            long cases = pyramid ? (long) rows * rows : (long) rows * cols;
+            if (cases > MAX_CASES || cases > Runtime.getRuntime().maxMemory()) {
+                throw new IOException("Board too large to be loaded : " + cases + " cases");
+            }
+            int n = (int) cases;
+            if (bombs < 0 || bombs > n) {
+                throw new IOException("Invalid number of bombs : " + bombs);
+            }
+            if (opening < -1 || opening >= n) {
+                throw new IOException("Invalid case kept free of bombs : " + opening);
+            }
+            if (buffer.remaining() < SETS.length * MIN_SET) {
+                throw new IOException("Truncated game file");
+            }
+            BitSet[] sets = new BitSet[SETS.length];
+            for (int s = 0; s < SETS.length; s++) {
+                byte encoding = buffer.get();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new IOException("Invalid length of set : " + length);
+                }
+                if (encoding == RAW && length > (n + 7) / 8 || encoding != RAW && encoding != RUNS) {
+                    throw new IOException("Invalid set of cases");
+                }
+                byte[] data = new byte[length];
+                buffer.get(data);
+                sets[s] = encoding == RUNS ? fromRuns(data, n) : BitSet.valueOf(data);
+            }
+
+            // an empty board, the first click places no bomb since placed is restored
+            Board board = pyramid ? new BoardPyramid(rows, bombs) : new Board2D(rows, cols, bombs);
+            for (int s = 0; s < SETS.length; s++) {
+                BitSet bits = sets[s];
+                for (int i = bits.nextSetBit(0); i >= 0 && i < n; i = bits.nextSetBit(i + 1)) {
+                    board.setCell(i, SETS[s], true);
+                }
+            }
+            board.setRandomKind(kind);
+            board.getTimer().restore(elapsed);
+            board.restore(seed, opening, placed, state);
+            board.computeNbBombs();
+            return board;
+        } catch (RuntimeException ex) {
+            // truncated file, wrong enum value, negative size...
+            throw new IOException("Corrupted game file", ex);
+        }
+    }
+
+    /**
+     * Lengths of the runs of equal bits, starting with a run of clear bits
+     */
+    private static byte[] runs(BitSet bits, int n) {
+        ByteBuffer out = ByteBuffer.allocate(16);
+        int pos = 0;
+        boolean set = false;
+        while (pos < n) {
+            int next = set ? bits.nextClearBit(pos) : bits.nextSetBit(pos);
+            if (next < 0 || next > n) {
+                next = n;
+            }
+            out = putVarint(out, next - pos);
+            pos = next;
+            set = !set;
+        }
+        byte[] result = new byte[out.position()];
+        out.flip();
+        out.get(result);
+        return result;
+    }
+
+    private static BitSet fromRuns(byte[] data, int n) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        BitSet bits = new BitSet(n);
+        int pos = 0;
+        boolean set = false;
+        while (in.hasRemaining()) {
+            int length = getVarint(in);
+            if (length < 0 || length > n - pos) {
+                throw new IOException("Run past the last case");
+            }
+            if (set) {
+                bits.set(pos, pos + length);
+            }
+            pos += length;
+            set = !set;
+        }
+        return bits;
+    }
+
+    /**
+     * Write an int 7 bits per byte, the high bit telling that more follow
+     *
+     * @return the buffer, grown if needed
+     */
+    private static ByteBuffer putVarint(ByteBuffer out, int value) {
+        if (out.remaining() < 5) {
+            ByteBuffer bigger = ByteBuffer.allocate(out.capacity() * 2);
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+        return out;
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint too long");
+    }
+}
@@ -5,9 +5,6 @@
  */
 package Model;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Represent a pyramidal board
  * @author Gaetan
@@ -19,140 +16,90 @@ public class BoardPyramid extends Board {
      */
     private int baseSize;
 
+    /**
+     * Constructor, the bombs are placed by the first left click
+     *
+     * @param baseSize Number of rows of the pyramid
+     * @param bomb Number of bomb to be generated
+     */
     public BoardPyramid(int baseSize, int bomb) {
         super(baseSize, 0, bomb);
         this.baseSize = baseSize;
     }
 
+    /**
+     * Constructor placing the bombs from a given seed
+     *
+     * @param baseSize Number of rows of the pyramid
+     * @param bomb Number of bomb to be generated
+     * @param seed Seed of the bomb placement
+     */
+    public BoardPyramid(int baseSize, int bomb, long seed) {
+        super(baseSize, 0, bomb, seed);
+        this.baseSize = baseSize;
+    }
+
     /**
      * Create the board
      *
      * @param row
      * @param col
-     * @return
      */
     @Override
-    protected List<List<Case>> createBoard(int row, int col) {
+    protected void createBoard(int row, int col) {
         this.baseSize = row;
-        return this.createPyramid();
+        this.createPyramid();
     }
 
     /**
      * Create a pyramid with baseSize
-     *
-     * @return
      */
-    private List<List<Case>> createPyramid() {
-        return this.createPyramid(baseSize);
+    private void createPyramid() {
+        this.createPyramid(baseSize);
     }
 
     /**
-     * Return the list of case as a Pyramidial shape
+     * Lay out the cases as a Pyramidial shape : the first row holds
+     * 2 * baseSize - 1 triangles, each following row two less
      *
-     * @return
+     * @param baseSize
      */
-    private List<List<Case>> createPyramid(int baseSize) {
-        List<List<Case>> grid = new ArrayList<>();
-        for (int i = baseSize; i > 0; i--) {
-            grid.add(createRowTriangularCases(i));
+    private void createPyramid(int baseSize) {
+        int[] start = new int[baseSize + 1];
+        for (int i = 0; i < baseSize; i++) {
+            start[i + 1] = start[i] + 2 * (baseSize - i) - 1;
         }
-        return grid;
+        allocate(start);
     }
 
     /**
-     * Create a row of cases
+     * Compute the neighbours of a triangle : left, right and the one sharing
+     * its horizontal side. Even columns are pointing down and touch the row
+     * above, odd columns are pointing up and touch the row below.
      *
-     * @param size
-     * @return
-     */
-    private List<Case> createRowTriangularCases(int size) {
-        List<Case> row = new ArrayList<>();
-        for (int i = 0; i < 2 * size - 1; i++) {
-            row.add(new Case());
-        }
-        return row;
-    }
-
-    /**
-     * Set the neighbours for every cases
+     * @param index the index of the case
+     * @param out receives the indexes of the neighbours
+     * @return the number of neighbours
      */
     @Override
-    public void setUpNeighbours() {
-        boolean down = true;
-        for (int row = 0; row < this.getBoard().size(); row++) {
-            for (int col = 0; col < this.getBoard().get(row).size(); col++) {
-                if (getLeft(row, col) != null) {
-                    board.get(row).get(col).addNeighbour(getLeft(row, col));
-                }
-                if (getRight(row, col) != null) {
-                    board.get(row).get(col).addNeighbour(getRight(row, col));
-                }
-                if (down && getUp(row, col) != null) {
-                    board.get(row).get(col).addNeighbour(getUp(row, col));
-                } else if (getDown(row, col) != null) { // Up
-                    board.get(row).get(col).addNeighbour(getDown(row, col));
-                }
-                down = !down;
-            }
-            down = true; // Each line starts with a down triangle
-        }
-    }
-
-    /**
-     * Try to get left neighbour
-     *
-     * @param row
-     * @param col
-     * @return the case corresponding if found, null else
-     */
-    private Case getLeft(int row, int col) {
-        if (col == 0 || getBoard().get(row).isEmpty()) {
-            return null;
-        }
-        return getBoard().get(row).get(col - 1);
-    }
-
-    /**
-     * Try to get Right neighbour
-     *
-     * @param row
-     * @param col
-     * @return the case corresponding if found, null else
-     */
-    private Case getRight(int row, int col) {
-        if (col >= getBoard().get(row).size() - 1 || getBoard().get(row).isEmpty()) {
-            return null;
+    public int neighbours(int index, int[] out) {
+        int row = rowOf(index);
+        int col = index - rowStart[row];
+        int nb = 0;
+        if (col > 0) {
+            out[nb++] = index - 1;
         }
-        return getBoard().get(row).get(col + 1);
-    }
-
-    /**
-     * Try to get up neighbour
-     *
-     * @param row
-     * @param col
-     * @return the case corresponding if found, null else
-     */
-    private Case getUp(int row, int col) {
-        if (getBoard().isEmpty() || row == 0 || col >= getBoard().get(row).size() - 1) {
-            return null;
+        if (col < getNbCol(row) - 1) {
+            out[nb++] = index + 1;
         }
-        return getBoard().get(row - 1).get(col + 1);
-    }
-
-    /**
-     * Try to get down neighbour
-     *
-     * @param row
-     * @param col
-     * @return the case corresponding if found, null else
-     */
-    private Case getDown(int row, int col) {
-        if (row >= getBoard().size() - 1 || getLeft(row, col) == null || getRight(row, col) == null) {
-            return null;
+        if (col % 2 == 0) {
+            if (row > 0) {
+                out[nb++] = indexOf(row - 1, col + 1);
+            }
+        } else if (row < getNbRow() - 1) {
+            out[nb++] = indexOf(row + 1, col - 1);
         }
-        List<Case> list = getBoard().get(row + 1);
-        return list.get(col - 1);
+        return nb;
     }
 
 }
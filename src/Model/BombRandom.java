@@ -0,0 +1,116 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Source of the random numbers placing the bombs
+ *
+ * A generator is created from a seed for each placement and used by a single
+ * thread, so it needs no synchronization and the games generated at once do
+ * not share anything.
+ */
+public interface BombRandom {
+
+    /**
+     * Return a number drawn uniformly between 0 (included) and bound
+     * (excluded)
+     *
+     * @param bound positive
+     * @return
+     */
+    int nextInt(int bound);
+
+    /**
+     * Return a number drawn uniformly among all the longs
+     *
+     * @return
+     */
+    long nextLong();
+
+    /**
+     * Kind of generator, saved with the boards (by its ordinal) so that a
+     * seed gives the same bombs when the game is loaded or replayed
+     */
+    enum Kind {
+        /**
+         * java.util.Random, synchronized : the placement of the files saved
+         * before the generators could be chosen
+         */
+        JDK {
+            @Override
+            public BombRandom create(long seed) {
+                Random r = new Random(seed);
+                return new BombRandom() {
+                    @Override
+                    public int nextInt(int bound) {
+                        return r.nextInt(bound);
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        return r.nextLong();
+                    }
+                };
+            }
+        },
+        /**
+         * java.util.SplittableRandom
+         */
+        SPLITTABLE {
+            @Override
+            public BombRandom create(long seed) {
+                SplittableRandom r = new SplittableRandom(seed);
+                return new BombRandom() {
+                    @Override
+                    public int nextInt(int bound) {
+                        return r.nextInt(bound);
+                    }
+
+                    @Override
+                    public long nextLong() {
+                        return r.nextLong();
+                    }
+                };
+            }
+        },
+        /**
+         * {@link XoroshiroRandom}, the default : written here, so a seed
+         * gives the same board whatever the version of Java
+         */
+        XOROSHIRO {
+            @Override
+            public BombRandom create(long seed) {
+                return new XoroshiroRandom(seed);
+            }
+        };
+
+        /**
+         * Create a generator
+         *
+         * @param seed
+         * @return
+         */
+        public abstract BombRandom create(long seed);
+
+        /**
+         * Return the kind saved with the given ordinal
+         *
+         * @param ordinal
+         * @return
+         * @throws IllegalArgumentException if no kind has this ordinal
+         */
+        public static Kind valueOf(int ordinal) {
+            Kind[] kinds = values();
+            if (ordinal < 0 || ordinal >= kinds.length) {
+                throw new IllegalArgumentException("Unknown random generator : " + ordinal);
+            }
+            return kinds[ordinal];
+        }
+    }
+}
@@ -5,149 +5,101 @@
  */
 package Model;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class case representing a case in the model Can be a trap or not, displayed
  * or not yet, or set as flag
+ *
+ * A case is only a light view over the cells stored in its board : it holds
+ * no state by itself and can be created on demand
  */
 public class Case {
 
-    private boolean flag;
-    private boolean trap;
-    private boolean visible;
-    private LinkedList<Case> neighbours;
-    private int nbBomb; //Number of bonbs neighbour to current case
-    private CaseState state;
+    private final Board board;
+    private final int index;
+
+    /**
+     * Constructor
+     *
+     * @param board the board holding the case
+     * @param index the flat index of the case in the board
+     */
+    public Case(Board board, int index) {
+        this.board = board;
+        this.index = index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
 
     public boolean isFlag() {
-        return flag;
+        return board.cells.is(index, CellStore.FLAG);
     }
 
     public void setFlag(boolean flag) {
-        if (this.flag = flag) {
-            this.setState(CaseState.FLAGGED);
-        } else {
-            this.setState();
-        }
+        board.setCell(index, CellStore.FLAG, flag);
     }
 
     public boolean isTrap() {
-        return trap;
+        return board.cells.is(index, CellStore.TRAP);
     }
 
     public void setTrap(boolean trap) {
-        this.trap = trap;
-        this.setState(CaseState.TRAPPED);
+        board.setTrap(index, trap);
     }
 
     public boolean isVisible() {
-        return visible;
+        return board.cells.is(index, CellStore.VISIBLE);
     }
 
     public void setVisible(boolean visible) {
-        this.visible = visible;
-        this.setState();
+        board.setCell(index, CellStore.VISIBLE, visible);
     }
 
-    public LinkedList getNeighbours() {
+    /**
+     * Build the list of the neighbours of the case
+     *
+     * @return
+     */
+    public List<Case> getNeighbours() {
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int nb = board.neighbours(index, around);
+        List<Case> neighbours = new ArrayList<>(nb);
+        for (int k = 0; k < nb; k++) {
+            neighbours.add(new Case(board, around[k]));
+        }
         return neighbours;
     }
 
-    public void setNeighbours(LinkedList neighbours) {
-        this.neighbours = neighbours;
-    }
-
-    public void addNeighbour(Case c) {
-        neighbours.add(c);
-    }
-
     public int getNbBomb() {
-        return nbBomb;
-    }
-
-    public Case() {
-        this.setFlag(false);
-        this.setTrap(false);
-        this.neighbours = new LinkedList<Case>();
-        this.setVisible(false);
-        this.setState();
+        return board.cells.getNbBomb(index);
     }
 
     public void reset() {
-        this.setFlag(false);
-        this.setTrap(false);
-        this.neighbours = new LinkedList<>();
-        this.setVisible(false);
-        this.setState();
+        board.setTrap(index, false);
+        board.setCell(index, CellStore.FLAG | CellStore.VISIBLE | CellStore.TRIGGERED, false);
     }
 
     public void setFlag() {
-        this.setState((this.flag = !this.flag) ? CaseState.FLAGGED : CaseState.UNDISCOVERED);
-
+        this.setFlag(!this.isFlag());
     }
 
     /**
      * @return the state
      */
     public CaseState getState() {
-        return state;
-    }
-
-    /**
-     * @param state the state to set
-     */
-    public void setState(CaseState state) {
-        this.state = state;
-    }
-
-    public void setState() {
-        if (this.state == CaseState.TRIGGERED) {
-            return;
-        }
-
-        if (!isVisible()) {
-            setState(CaseState.UNDISCOVERED);
-        } else if (flag) {
-            setState(CaseState.FLAGGED);
-        } else if (isTrap() && isVisible()) {
-            setState(CaseState.TRAPPED);
-        } else if (isVisible() && nbBomb == 0) {
-            setState(CaseState.EMPTY);
-        } else {
-            setState(CaseState.DISCOVERED);
-        }
+        return board.cells.getState(index);
     }
 
     public void discoverNeighbours() {
-        if (!isTrap()) {
-            for (Case c : this.neighbours) {
-                if (!c.isVisible() && !c.flag) {
-                    c.discover();
-                    if (c.nbBomb == 0) {
-                        c.discoverNeighbours();
-                    }
-                }
-            }
-        }
+        board.discoverNeighbours(index);
     }
 
     public void discover() {
-        if (!isVisible()) {
-            this.setVisible(true);
-            nbBomb = computeNbBomb();
-        }
-        this.setState();
-    }
-
-    public int computeNbBomb() {
-        nbBomb = 0;
-        for (Case c : this.neighbours) {
-            if (c.isTrap()) {
-                nbBomb++;
-            }
-        }
-        return nbBomb;
+        board.discover(index);
     }
 
     @Override
@@ -0,0 +1,150 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Storage engine holding the state of every case of a board as a few packed
+ * bits, indexed by the flat index of the case (see {@link Board#indexOf})
+ */
+public abstract class CellStore {
+
+    /**
+     * The case holds a bomb
+     */
+    public static final int TRAP = 1;
+    /**
+     * The case has been flagged by the player
+     */
+    public static final int FLAG = 1 << 1;
+    /**
+     * The case has been discovered
+     */
+    public static final int VISIBLE = 1 << 2;
+    /**
+     * The case is the bomb which made the player lose
+     */
+    public static final int TRIGGERED = 1 << 3;
+
+    /**
+     * The number of bombs around a case is stored in the 4 upper bits
+     */
+    private static final int NB_BOMB_SHIFT = 4;
+    private static final int NB_BOMB_MASK = 0xF0;
+
+    /**
+     * Return the number of cases stored
+     *
+     * @return
+     */
+    public abstract int size();
+
+    /**
+     * Return the raw bits of a case
+     *
+     * @param index
+     * @return
+     */
+    public abstract int get(int index);
+
+    /**
+     * Overwrite the raw bits of a case
+     *
+     * @param index
+     * @param bits
+     */
+    public abstract void set(int index, int bits);
+
+    /**
+     * Return the number of bytes used to store the cases
+     *
+     * @return
+     */
+    public abstract long footprint();
+
+    /**
+     * Reset every case to undiscovered, without bomb nor flag
+     */
+    public void clear() {
+        for (int i = 0; i < size(); i++) {
+            set(i, 0);
+        }
+    }
+
+    /**
+     * Test if all the bits given are set on a case
+     *
+     * @param index
+     * @param mask one or several of TRAP, FLAG, VISIBLE, TRIGGERED
+     * @return
+     */
+    public boolean is(int index, int mask) {
+        return (get(index) & mask) == mask;
+    }
+
+    /**
+     * Set or clear bits on a case
+     *
+     * @param index
+     * @param mask one or several of TRAP, FLAG, VISIBLE, TRIGGERED
+     * @param value
+     */
+    public void set(int index, int mask, boolean value) {
+        int bits = get(index);
+        set(index, value ? bits | mask : bits & ~mask);
+    }
+
+    /**
+     * Return the number of bombs around a case
+     *
+     * @param index
+     * @return
+     */
+    public int getNbBomb(int index) {
+        return (get(index) & NB_BOMB_MASK) >>> NB_BOMB_SHIFT;
+    }
+
+    /**
+     * Store the number of bombs around a case (0 to 15)
+     *
+     * @param index
+     * @param nbBomb
+     */
+    public void setNbBomb(int index, int nbBomb) {
+        set(index, (get(index) & ~NB_BOMB_MASK) | (nbBomb << NB_BOMB_SHIFT));
+    }
+
+    /**
+     * Compute the state of a case from its bits
+     *
+     * @param index
+     * @return
+     */
+    public CaseState getState(int index) {
+        return stateOf(get(index));
+    }
+
+    /**
+     * Compute the state of a case from its raw bits
+     *
+     * @param bits
+     * @return
+     */
+    public static CaseState stateOf(int bits) {
+        if ((bits & TRIGGERED) != 0) {
+            return CaseState.TRIGGERED;
+        }
+        if ((bits & FLAG) != 0) {
+            return CaseState.FLAGGED;
+        }
+        if ((bits & TRAP) != 0) {
+            return CaseState.TRAPPED;
+        }
+        if ((bits & VISIBLE) == 0) {
+            return CaseState.UNDISCOVERED;
+        }
+        return (bits & NB_BOMB_MASK) == 0 ? CaseState.EMPTY : CaseState.DISCOVERED;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Observer;
+
+/**
+ * Entry point to play games without any GUI (bots, tests, analytics)
+ *
+ * Wraps a board : create it, apply moves, query what a player can see and
+ * observe the changes. Only depends on the Model package.
+ */
+public class GameEngine {
+
+    /**
+     * Shape of the board
+     */
+    public enum Shape {
+        SQUARE,
+        PYRAMID
+    }
+
+    /**
+     * Move of a player on a case
+     */
+    public enum Move {
+        REVEAL,
+        FLAG,
+        /**
+         * Reveal the neighbours of a number whose bombs are all flagged
+         */
+        CHORD
+    }
+
+    /**
+     * Receive the cases changed by each move
+     */
+    public interface Listener {
+
+        /**
+         * @param engine the game changed
+         * @param cases indexes of the cases changed, null if the whole board
+         * changed
+         */
+        void changed(GameEngine engine, int[] cases);
+    }
+
+    private final Board board;
+
+    public GameEngine(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Create a game
+     *
+     * @param shape
+     * @param row Number of rows (the size of the base for a pyramid)
+     * @param col Number of columns (ignored for a pyramid)
+     * @param bomb Number of bombs
+     * @param seed Seed of the bomb placement
+     * @return
+     */
+    public static GameEngine create(Shape shape, int row, int col, int bomb, long seed) {
+        return create(shape, row, col, bomb, seed, BombRandom.Kind.XOROSHIRO);
+    }
+
+    /**
+     * Create a game, the same arguments always giving the same board
+     *
+     * @param shape
+     * @param row Number of rows (the size of the base for a pyramid)
+     * @param col Number of columns (ignored for a pyramid)
+     * @param bomb Number of bombs
+     * @param seed Seed of the bomb placement
+     * @param kind Generator drawing the bombs from the seed
+     * @return
+     */
+    public static GameEngine create(Shape shape, int row, int col, int bomb, long seed, BombRandom.Kind kind) {
+        Board board = shape == Shape.PYRAMID ? new BoardPyramid(row, bomb) : new Board2D(row, col, bomb);
+        board.setRandomKind(kind);
+        board.resetBoard(seed);
+        return new GameEngine(board);
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Apply a move
+     *
+     * @param move
+     * @param row
+     * @param col
+     * @return the state of the game after the move
+     */
+    public GameState play(Move move, int row, int col) {
+        if (move == Move.FLAG) {
+            board.rightClick(row, col);
+        } else if (move == Move.CHORD) {
+            board.chord(row, col);
+        } else if (!board.gameFinished()) {
+            board.leftClick(row, col);
+        }
+        return board.getState();
+    }
+
+    /**
+     * Start a new game on the same board
+     *
+     * @param seed Seed of the bomb placement
+     */
+    public void reset(long seed) {
+        board.resetBoard(seed);
+    }
+
+    public GameState getState() {
+        return board.getState();
+    }
+
+    public int getNbRow() {
+        return board.getNbRow();
+    }
+
+    public int getNbCol(int row) {
+        return board.getNbCol(row);
+    }
+
+    /**
+     * Return the state of a case as the player sees it : the hidden bombs are
+     * shown as UNDISCOVERED while the game runs
+     *
+     * @param row
+     * @param col
+     * @return
+     */
+    public CaseState getCaseState(int row, int col) {
+        CaseState state = board.getCase(row, col).getState();
+        if (state == CaseState.TRAPPED && !board.gameFinished()) {
+            return CaseState.UNDISCOVERED;
+        }
+        return state;
+    }
+
+    /**
+     * Return the number of bombs around a discovered case
+     *
+     * @param row
+     * @param col
+     * @return the number of bombs, -1 if the case is not discovered
+     */
+    public int getNbBomb(int row, int col) {
+        Case c = board.getCase(row, col);
+        return c.isVisible() && !c.isTrap() ? c.getNbBomb() : -1;
+    }
+
+    /**
+     * Return the number of bombs not flagged yet
+     *
+     * @return
+     */
+    public int getNbBombLeft() {
+        return board.getNbBomb() - board.getNbFlag();
+    }
+
+    /**
+     * Observe the changes of the board
+     *
+     * @param listener
+     * @return the observer registered on the board, to remove it later
+     */
+    public Observer addListener(Listener listener) {
+        Observer observer = (o, arg) -> listener.changed(this, (int[]) arg);
+        board.addObserver(observer);
+        return observer;
+    }
+
+    public void removeListener(Observer observer) {
+        board.deleteObserver(observer);
+    }
+}
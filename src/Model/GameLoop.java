@@ -0,0 +1,233 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single thread applying all the commands changing a board
+ *
+ * The commands are queued in a bounded mailbox and run one after the other on
+ * the thread of the loop, which is the only one writing the board : the model
+ * needs no lock. The commands waiting in the mailbox are run as a batch,
+ * which sends a single notification to the observers.
+ */
+public class GameLoop implements Executor {
+
+    /**
+     * Default number of commands the mailbox can hold
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * Maximum number of commands run in a batch
+     */
+    private static final int MAX_BATCH = 64;
+
+    private final Board board;
+    private final BlockingQueue<Command> mailbox;
+    private final Thread thread;
+    private final List<Command> batch = new ArrayList<>();
+    private volatile boolean running = true;
+    private volatile Thread.UncaughtExceptionHandler errorHandler;
+
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private volatile long maxLatency;
+
+    /**
+     * A command waiting in the mailbox
+     */
+    private static final class Command {
+
+        private final Runnable action;
+        private final long submitted;
+
+        private Command(Runnable action) {
+            this.action = action;
+            this.submitted = System.nanoTime();
+        }
+    }
+
+    public GameLoop(Board board) {
+        this(board, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor, starts the thread of the loop
+     *
+     * @param board the board changed by the commands
+     * @param capacity number of commands the mailbox can hold
+     */
+    public GameLoop(Board board, int capacity) {
+        this.board = board;
+        this.mailbox = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::loop, "game-loop");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Queue a command
+     *
+     * @param command
+     * @return false if the mailbox is full or the loop stopped, the command
+     * being dropped
+     */
+    public boolean submit(Runnable command) {
+        if (running && mailbox.offer(new Command(command))) {
+            return true;
+        }
+        rejected.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Queue a command
+     *
+     * @param command
+     * @throws RejectedExecutionException if the mailbox is full or the loop
+     * stopped
+     */
+    @Override
+    public void execute(Runnable command) {
+        if (!submit(command)) {
+            throw new RejectedExecutionException("Game loop mailbox full or stopped");
+        }
+    }
+
+    /**
+     * Stop the loop, the commands still queued are dropped
+     */
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * Run the commands as they arrive
+     */
+    private void loop() {
+        try {
+            while (running) {
+                batch.add(mailbox.take());
+                mailbox.drainTo(batch, MAX_BATCH - 1);
+                board.beginBatch();
+                try {
+                    for (Command c : batch) {
+                        run(c);
+                    }
+                } finally {
+                    board.endBatch();
+                    batch.clear();
+                }
+                batches.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Stopped
+        }
+    }
+
+    /**
+     * Run a command and record its latency
+     *
+     * @param c
+     */
+    private void run(Command c) {
+        try {
+            c.action.run();
+        } catch (RuntimeException e) {
+            report(e); // Keep the loop alive for the next commands
+        }
+        long latency = System.nanoTime() - c.submitted;
+        totalLatency.addAndGet(latency);
+        if (latency > maxLatency) {
+            maxLatency = latency;
+        }
+        processed.incrementAndGet();
+    }
+
+    /**
+     * Choose who receives the exceptions thrown by the commands
+     *
+     * @param errorHandler null for the default handler of the threads, or
+     * else the one of the thread group, which prints the stack trace
+     */
+    public void setErrorHandler(Thread.UncaughtExceptionHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Hand an exception thrown by a command to the error handler, the thread
+     * going on with the next one
+     *
+     * @param ex
+     */
+    private void report(RuntimeException ex) {
+        Thread t = Thread.currentThread();
+        Thread.UncaughtExceptionHandler h = errorHandler;
+        if (h == null) {
+            h = Thread.getDefaultUncaughtExceptionHandler();
+        }
+        if (h == null) {
+            h = t.getThreadGroup();
+        }
+        h.uncaughtException(t, ex);
+    }
+
+    /**
+     * Return the number of commands waiting in the mailbox
+     *
+     * @return
+     */
+    public int getQueueDepth() {
+        return mailbox.size();
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Return the average time between the submission of a command and the
+     * end of its execution
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getAverageLatency() {
+        long n = processed.get();
+        return n == 0 ? 0 : totalLatency.get() / n;
+    }
+
+    /**
+     * Return the longest time between the submission of a command and the end
+     * of its execution
+     *
+     * @return the latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+}
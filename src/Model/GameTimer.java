@@ -5,74 +5,208 @@
  */
 package Model;
 
+import java.util.Observer;
 import java.util.Observable;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Countdown of a game, from 300 seconds to 0
+ *
+ * The time left is computed from System.nanoTime when asked, so it does not
+ * drift. The observers are only notified when the number of seconds shown
+ * changes, through the shared timer wheel : a game costs no thread, and a
+ * timer nobody observes never wakes up.
  *
  * @author seljo
  */
 public class GameTimer extends Observable {
 
-    private Timer t;
-    private int value; //Value of counter
+    /**
+     * Length of a game in milliseconds
+     */
+    public static final long DURATION = 300_000;
+
+    private final TimerWheel wheel;
+    private TimerWheel.Timeout timeout;
+    private int generation; // number of the countdown running, to ignore the ticks of a stopped one
+    private volatile long startNanos;
+    private volatile long stopNanos;
+    private volatile boolean running;
+    private volatile boolean started;
+    private int shown; // seconds shown at the last notification
 
     /**
      *
      * @return the value of counter in string
      */
     public String getValue() {
-        return Integer.toString(value);
+        return Integer.toString(getValueInt());
     }
 
     /**
      *
-     * @return the value of counter in integer
+     * @return the number of seconds left, rounded up
      */
     public int getValueInt() {
-        return value;
+        return (int) ((getRemainingMillis() + 999) / 1000);
+    }
+
+    /**
+     * Return the time spent since the start, frozen when the timer is stopped
+     *
+     * @return
+     */
+    public long getElapsedMillis() {
+        if (!started) {
+            return 0;
+        }
+        long end = running ? System.nanoTime() : stopNanos;
+        return Math.min(DURATION, TimeUnit.NANOSECONDS.toMillis(end - startNanos));
+    }
+
+    /**
+     * Return the time left before the end of the countdown
+     *
+     * @return
+     */
+    public long getRemainingMillis() {
+        return DURATION - getElapsedMillis();
     }
 
     public GameTimer() {
-        this.value = 300;
-        t = new Timer();
+        this(TimerWheel.getDefault());
     }
 
     /**
-     * Method to start the counter
+     * Constructor
+     *
+     * @param wheel the wheel driving the notifications
+     */
+    public GameTimer(TimerWheel wheel) {
+        this.wheel = wheel;
+    }
+
+    /**
+     * Method to start the counter, the observers are notified to show the
+     * full countdown
      */
     public void start() {
-        this.value = 300;
-        this.t.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                value--;
-                // notify the view
-                setChanged();
-                notifyObservers();
-                if (value == 0) // if counter arrives zero
-                {
-                    stop();
-                }
+        synchronized (this) {
+            cancel();
+            this.startNanos = System.nanoTime();
+            this.started = true;
+            this.running = true;
+            this.shown = getValueInt();
+            schedule();
+        }
+        setChanged();
+        notifyObservers();
+    }
+
+    /**
+     * Start the counter again from the time it was stopped at
+     */
+    public void resume() {
+        synchronized (this) {
+            if (running) {
+                return;
             }
-        }, 0, 1000);
+            long elapsed = getElapsedMillis();
+            cancel();
+            this.startNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(elapsed);
+            this.started = true;
+            this.running = true;
+            this.shown = getValueInt();
+            schedule();
+        }
+        setChanged();
+        notifyObservers();
+    }
+
+    /**
+     * Put the counter back to a saved time, stopped
+     *
+     * @param elapsedMillis time spent when it was saved
+     */
+    public synchronized void restore(long elapsedMillis) {
+        cancel();
+        this.running = false;
+        this.stopNanos = System.nanoTime();
+        this.startNanos = stopNanos - TimeUnit.MILLISECONDS.toNanos(elapsedMillis);
+        this.started = true;
+    }
+
+    /**
+     * Schedule the notification of the next second shown, if anybody observes
+     * the timer
+     */
+    private void schedule() {
+        if (running && timeout == null && countObservers() > 0) {
+            int g = generation;
+            long delay = getRemainingMillis() - (getValueInt() - 1) * 1000L;
+            timeout = wheel.schedule(() -> tick(g), delay);
+        }
+    }
+
+    /**
+     * Notify the observers of the second shown, which changed since the
+     * wheel never runs the task before its delay (at most a tick after)
+     *
+     * @param g the countdown of the tick
+     */
+    private void tick(int g) {
+        boolean changed;
+        synchronized (this) {
+            if (g != generation) {
+                return;
+            }
+            timeout = null;
+            int value = getValueInt();
+            changed = value != shown;
+            shown = value;
+            if (value == 0) {
+                // if counter arrives zero
+                stop();
+            } else {
+                schedule();
+            }
+        }
+        if (changed) {
+            // notify the view
+            setChanged();
+            notifyObservers();
+        }
+    }
+
+    @Override
+    public synchronized void addObserver(Observer o) {
+        super.addObserver(o);
+        schedule();
     }
 
     /*
-     * Method to stop the counter
+     * Method to stop the counter, the elapsed time stays the one of this call
      */
-    public void stop() {
-        this.t.cancel();
-        this.t.purge();
+    public synchronized void stop() {
+        if (running) {
+            this.stopNanos = System.nanoTime();
+            this.running = false;
+        }
+        cancel();
+    }
+
+    private void cancel() {
+        generation++;
+        if (timeout != null) {
+            timeout.cancel();
+            timeout = null;
+        }
     }
 
     /**
      * REstart the counter
      */
     public void restart() {
-        stop();
-        t = new Timer();
         start();
     }
     
@@ -0,0 +1,105 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive int keeping the order of insertion, sized by the number of
+ * values and not by their range : used to track a few cases of a huge board
+ *
+ * Open addressing with linear probing, the slots used are remembered so that
+ * clearing the set costs its size and not its capacity.
+ */
+public class IntSet {
+
+    private int[] table; // value + 1, 0 for an empty slot
+    private final IntList values = new IntList();
+    private final IntList slots = new IntList();
+
+    public IntSet() {
+        this(16);
+    }
+
+    public IntSet(int capacity) {
+        this.table = new int[Integer.highestOneBit(Math.max(capacity, 8) - 1) << 2];
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    public int get(int i) {
+        return values.get(i);
+    }
+
+    /**
+     * Add a value
+     *
+     * @param value not negative
+     * @return false if the value was already in the set
+     */
+    public boolean add(int value) {
+        int mask = table.length - 1;
+        int slot = hash(value) & mask;
+        while (table[slot] != 0) {
+            if (table[slot] == value + 1) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value + 1;
+        slots.add(slot);
+        values.add(value);
+        if (2 * values.size() > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Empty the set, keeping its capacity
+     */
+    public void clear() {
+        for (int i = 0; i < slots.size(); i++) {
+            table[slots.get(i)] = 0;
+        }
+        slots.clear();
+        values.clear();
+    }
+
+    public int[] toArray() {
+        return values.toArray();
+    }
+
+    private void grow() {
+        table = new int[table.length * 2];
+        slots.clear();
+        int mask = table.length - 1;
+        for (int i = 0; i < values.size(); i++) {
+            int slot = hash(values.get(i)) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = values.get(i) + 1;
+            slots.add(slot);
+        }
+    }
+
+    private static int hash(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
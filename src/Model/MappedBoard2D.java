@@ -0,0 +1,251 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Board2D whose cases live in a memory-mapped file, for boards larger than
+ * the heap (hundreds of millions of cases)
+ *
+ * The clicks, the flags and the counters of the win work on the mapping like
+ * on an array ; {@link #getCase(int, int)} still returns a small view on the
+ * case. The state of the game is kept in the header of the file, so the
+ * board reopens without reading its cases. If the board was not closed, the
+ * counters and the state are rebuilt from a scan of the cases : a bomb
+ * triggered loses the game, no safe case hidden wins it.
+ */
+public class MappedBoard2D extends Board2D implements Closeable {
+
+    private static final int MAGIC = 0x4D53574D; // "MSWM"
+    private static final byte VERSION = 1;
+    private static final int HEADER = 64;
+    private static final int CLOSED = 5; // offsets in the header
+    private static final int ROWS = 6;
+    private static final int STATE = 18;
+    private static final int OPENING = 28;
+    private static final int RANDOM = 52;
+
+    private final Path file;
+    private MappedCellStore store;
+
+    private MappedBoard2D(int row, int col, int bomb, Path file, MappedCellStore store) {
+        super(row, col, bomb, store);
+        this.file = file;
+        this.store = store;
+    }
+
+    /**
+     * Create a board in a new file, the bombs are placed by the first left
+     * click
+     *
+     * @param file
+     * @param row
+     * @param col
+     * @param bomb
+     * @return
+     * @throws IOException
+     */
+    public static MappedBoard2D create(Path file, int row, int col, int bomb) throws IOException {
+        if ((long) row * col > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many cases : " + row + "x" + col);
+        }
+        // an empty file, the mapping fills it with zeros
+        MappedBoard2D board = new MappedBoard2D(row, col, bomb, file,
+                new MappedCellStore(file, HEADER, row * col, true));
+        board.writeHeader(false);
+        return board;
+    }
+
+    /**
+     * Open a board saved in a file
+     *
+     * @param file
+     * @return
+     * @throws IOException if the file is not a board
+     */
+    public static MappedBoard2D open(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        long length;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            length = channel.size();
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read it all
+            }
+        }
+        header.flip();
+        if (header.remaining() < HEADER || header.getInt() != MAGIC) {
+            throw new IOException("Not a mapped minesweeper board : " + file);
+        }
+        if (header.get() != VERSION) {
+            throw new IOException("Unknown version of mapped board : " + file);
+        }
+        // check the header before mapping anything from it
+        int row = header.getInt(ROWS);
+        int col = header.getInt(ROWS + 4);
+        int bomb = header.getInt(ROWS + 8);
+        if (row <= 0 || col <= 0 || (long) row * col > Integer.MAX_VALUE) {
+            throw new IOException("Invalid size of board : " + row + " x " + col);
+        }
+        int cases = row * col;
+        if (length != HEADER + (long) cases) {
+            throw new IOException("Size of the file does not match the board : " + file);
+        }
+        if (bomb < 0 || bomb > cases) {
+            throw new IOException("Invalid number of bombs : " + bomb);
+        }
+        int opening = header.getInt(OPENING);
+        if (opening < -1 || opening >= cases) {
+            throw new IOException("Invalid case kept free of bombs : " + opening);
+        }
+        if (header.get(STATE) < 0 || header.get(STATE) >= GameState.values().length) {
+            throw new IOException("Invalid state of game : " + header.get(STATE));
+        }
+        if (header.get(RANDOM) < 0 || header.get(RANDOM) >= BombRandom.Kind.values().length) {
+            throw new IOException("Unknown random generator : " + header.get(RANDOM));
+        }
+        MappedBoard2D board = new MappedBoard2D(row, col, bomb, file,
+                new MappedCellStore(file, HEADER, cases));
+        board.readHeader();
+        return board;
+    }
+
+    /**
+     * Header : magic, version, closed, rows, cols, bombs, state, placed,
+     * seed, opening, hidden, flags, flagged bombs, time spent, generator of
+     * the bombs
+     */
+    private void writeHeader(boolean closed) {
+        ByteBuffer h = store.header();
+        h.putInt(MAGIC).put(VERSION).put((byte) (closed ? 1 : 0));
+        h.putInt(getNbRow()).putInt(getNbCol(0)).putInt(nbBomb);
+        h.put((byte) state.ordinal()).put((byte) (isPlaced() ? 1 : 0));
+        h.putLong(getSeed()).putInt(getOpening());
+        h.putInt(nbHidden).putInt(nbFlag).putInt(nbFlaggedBomb);
+        h.putLong(getTimer().getElapsedMillis());
+        h.put((byte) getRandomKind().ordinal());
+    }
+
+    private void readHeader() {
+        ByteBuffer h = store.header();
+        boolean closed = h.get(CLOSED) == 1;
+        h.position(STATE);
+        GameState saved = GameState.values()[h.get()];
+        boolean placed = h.get() == 1;
+        long seed = h.getLong();
+        int opening = h.getInt();
+        int hidden = h.getInt();
+        int flags = h.getInt();
+        int flaggedBombs = h.getInt();
+        getTimer().restore(h.getLong());
+        setRandomKind(BombRandom.Kind.valueOf(h.get(RANDOM)));
+        if (closed) {
+            this.nbHidden = hidden;
+            this.nbFlag = flags;
+            this.nbFlaggedBomb = flaggedBombs;
+        } else {
+            // the header may be older than the cases
+            saved = recount(placed);
+        }
+        restore(seed, opening, placed, saved);
+        // open again : not closed until close() is called
+        store.header().put(CLOSED, (byte) 0);
+    }
+
+    /**
+     * Count the hidden cases and the flags on the whole board, and find the
+     * state of the game from the cases
+     *
+     * @param placed true if the bombs are placed
+     * @return LOST if a bomb was triggered, WON if no safe case is hidden or
+     * every bomb is flagged, else RUNNING
+     */
+    private GameState recount(boolean placed) {
+        resetCounters();
+        boolean triggered = false;
+        int hiddenSafe = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            int bits = cells.get(i);
+            if ((bits & CellStore.VISIBLE) != 0) {
+                nbHidden--;
+            } else if ((bits & CellStore.TRAP) == 0) {
+                hiddenSafe++;
+            }
+            if ((bits & CellStore.FLAG) != 0) {
+                nbFlag++;
+                if ((bits & CellStore.TRAP) != 0) {
+                    nbFlaggedBomb++;
+                }
+            }
+            triggered |= (bits & CellStore.TRIGGERED) != 0;
+        }
+        if (triggered) {
+            return GameState.LOST;
+        }
+        return placed && (hiddenSafe == 0 || gameWon()) ? GameState.WON : GameState.RUNNING;
+    }
+
+    /**
+     * Place the bombs and record the placement in the header, so that a
+     * board not closed still reopens with its seed
+     */
+    @Override
+    protected void placeBombs(long seed, int opening) {
+        super.placeBombs(seed, opening);
+        writeHeader(false);
+    }
+
+    /**
+     * Start an empty board of another size in the same file, which is
+     * emptied and mapped again
+     *
+     * @param row
+     * @param col
+     * @param nbomb
+     * @throws UncheckedIOException if the file can not be mapped again
+     */
+    @Override
+    public void changeLevel(int row, int col, int nbomb) {
+        if ((long) row * col > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many cases : " + row + "x" + col);
+        }
+        try {
+            store.close();
+            store = new MappedCellStore(file, HEADER, row * col, true);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Can not map the board again : " + file, ex);
+        }
+        useStore(store);
+        super.changeLevel(row, col, nbomb);
+        writeHeader(false);
+    }
+
+    /**
+     * Write the state of the game and the cases to the disk
+     */
+    public void flush() {
+        writeHeader(false);
+        store.force();
+    }
+
+    /**
+     * Save the state and close the file, the board can not be used anymore
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        getTimer().stop();
+        writeHeader(true);
+        store.close();
+    }
+}
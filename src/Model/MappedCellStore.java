@@ -0,0 +1,144 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Store the cases in a memory-mapped file, one byte per case after a header
+ *
+ * The file is mapped in segments of 1 GB, a single mapping being limited to
+ * 2 GB, so the cases live outside of the heap and stay in the file when the
+ * JVM stops.
+ */
+public class MappedCellStore extends CellStore implements Closeable {
+
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = (int) (SEGMENT_SIZE - 1);
+    private static final byte[] ZEROS = new byte[1 << 16];
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int headerSize;
+    private final int size;
+
+    /**
+     * Open or create the file and map it
+     *
+     * @param file
+     * @param headerSize number of bytes kept before the cases
+     * @param size number of cases
+     * @throws IOException
+     */
+    public MappedCellStore(Path file, int headerSize, int size) throws IOException {
+        this(file, headerSize, size, false);
+    }
+
+    /**
+     * Open or create the file and map it
+     *
+     * @param file
+     * @param headerSize number of bytes kept before the cases
+     * @param size number of cases
+     * @param truncate true to empty the file first : the header and the
+     * cases are then filled with zeros
+     * @throws IOException
+     */
+    public MappedCellStore(Path file, int headerSize, int size, boolean truncate) throws IOException {
+        this.channel = truncate
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+        this.headerSize = headerSize;
+        this.size = size;
+        long length = headerSize + (long) size;
+        this.segments = new MappedByteBuffer[(int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+        for (int s = 0; s < segments.length; s++) {
+            long start = (long) s << SEGMENT_BITS;
+            segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, start, Math.min(SEGMENT_SIZE, length - start));
+        }
+    }
+
+    /**
+     * Return the header of the file, at the start of the first segment
+     *
+     * @return a view of the header, position 0
+     */
+    public ByteBuffer header() {
+        ByteBuffer header = segments[0].duplicate();
+        header.position(0).limit(headerSize);
+        return header.slice();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int get(int index) {
+        long pos = headerSize + (long) index;
+        return segments[(int) (pos >>> SEGMENT_BITS)].get((int) pos & SEGMENT_MASK) & 0xFF;
+    }
+
+    @Override
+    public void set(int index, int bits) {
+        long pos = headerSize + (long) index;
+        segments[(int) (pos >>> SEGMENT_BITS)].put((int) pos & SEGMENT_MASK, (byte) bits);
+    }
+
+    /**
+     * The cases are out of the heap : only the size of the mapping
+     *
+     * @return
+     */
+    @Override
+    public long footprint() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        long pos = headerSize;
+        long end = headerSize + (long) size;
+        while (pos < end) {
+            ByteBuffer segment = segments[(int) (pos >>> SEGMENT_BITS)].duplicate();
+            int from = (int) pos & SEGMENT_MASK;
+            int length = (int) Math.min(Math.min(ZEROS.length, end - pos), SEGMENT_SIZE - from);
+            segment.position(from);
+            segment.put(ZEROS, 0, length);
+            pos += length;
+        }
+    }
+
+    /**
+     * Write the changes to the disk
+     */
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Close the file. The mapping itself is released by the garbage collector
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Append-only journal of the moves played on a board, read back by
+ * {@link MoveReplayer}
+ *
+ * Format (version 1) : the int magic "MSWJ" and a version byte, then records
+ * made of varints (7 bits per byte, the high bit telling that more follow).
+ * Each record starts with a tag, its 2 low bits giving its kind :
+ * <pre>
+ * 0 REVEAL, 1 FLAG, 2 CHORD : tag = index of the case &lt;&lt; 2 | kind
+ *                             zigzag varint  time since the previous record
+ * 3 GAME (tag = 3)          : byte shape : 0 square, 1 pyramid
+ *                             varint rows (size of the base for a pyramid)
+ *                             varint columns (0 for a pyramid)
+ *                             varint bombs
+ *                             8 bytes seed of the placement
+ *                             varint case kept free of bombs + 1, 0 if none
+ *                             byte 1 if the bombs are placed, 0 if the first
+ *                             click places them
+ *                             byte generator of the bombs : ordinal of
+ *                             BombRandom.Kind
+ * 3 END (tag = 7)           : zigzag varint  time since the previous record
+ * 3 PLACE (tag = 11)        : 8 bytes seed of the placement
+ *                             varint case kept free of bombs + 1
+ * </pre>
+ * The times come from the {@link GameTimer} of the board, in milliseconds. A
+ * game record is written before the first move after each reset of the board.
+ * When the first click places the bombs after moves were recorded (flags),
+ * a place record gives the placement : replaying needs no generator.
+ * The end record holds the time of a won game, so the replay ranks it the
+ * same.
+ *
+ * The moves are encoded in a buffer owned by the thread playing the game and
+ * handed, when it is full or the game finished, to a single writer thread
+ * shared by all the journals, which writes the buffers waiting in one call.
+ * The journal must be attached to a board before the first move of a game,
+ * the moves played before are not replayable.
+ */
+public class MoveJournal implements Closeable {
+
+    static final int MAGIC = 0x4D53574A; // "MSWJ"
+    static final byte VERSION = 1;
+    /**
+     * Kind of the records other than moves, given by the low bits of the tag
+     */
+    static final int CONTROL = 3;
+    static final int GAME = CONTROL;
+    static final int END = 1 << 2 | CONTROL;
+    static final int PLACE = 2 << 2 | CONTROL;
+
+    private static final int CHUNK = 64 * 1024;
+    private static final int MAX_RECORD = 64; // longer than any record
+    private static final Writer WRITER = new Writer();
+
+    private final FileChannel channel;
+    private byte[] buffer = new byte[CHUNK];
+    private int position;
+    private Board board;
+    private boolean pendingGame;
+    private long lastTime;
+    private long nbGame;
+    private long nbMove;
+    private long size;
+    private volatile IOException failure;
+
+    /**
+     * Open a journal, appending to the file if it exists
+     *
+     * @param file
+     * @throws IOException if the file can not be opened or is not a journal
+     */
+    public MoveJournal(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.size = channel.size();
+            if (size == 0) {
+                putInt(MAGIC);
+                buffer[position++] = VERSION;
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(5);
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                    // read it all
+                }
+                header.flip();
+                if (header.remaining() < 5 || header.getInt() != MAGIC || header.get() != VERSION) {
+                    throw new IOException("Not a move journal : " + file);
+                }
+                channel.position(size);
+            }
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Return the number of games recorded
+     *
+     * @return
+     */
+    public long getNbGame() {
+        return nbGame;
+    }
+
+    /**
+     * Return the number of moves recorded
+     *
+     * @return
+     */
+    public long getNbMove() {
+        return nbMove;
+    }
+
+    /**
+     * Return the size of the journal, including the records not written yet
+     *
+     * @return the number of bytes
+     */
+    public long getSize() {
+        return size + position;
+    }
+
+    /**
+     * Start a new game on a board, its record is written with the first move
+     *
+     * @param board
+     */
+    void newGame(Board board) {
+        this.board = board;
+        this.pendingGame = true;
+    }
+
+    /**
+     * Record a move accepted by the board, before it is applied : the moves
+     * ignored (on a finished game, a discovered case...) are not recorded
+     *
+     * @param move
+     * @param index the case played
+     */
+    void record(GameEngine.Move move, int index) {
+        reserve();
+        if (pendingGame) {
+            putGame();
+        }
+        putVarint((long) index << 2 | move.ordinal());
+        putTime(board.getTimer().getElapsedMillis());
+        nbMove++;
+    }
+
+    /**
+     * Record the placement of the bombs by the first click, if the record of
+     * the game, which would give it, is already written
+     */
+    void placed() {
+        if (pendingGame || board == null) {
+            return;
+        }
+        reserve();
+        putVarint(PLACE);
+        putInt((int) (board.getSeed() >>> 32));
+        putInt((int) board.getSeed());
+        putVarint(board.getOpening() + 1L);
+    }
+
+    /**
+     * Record the end of the game and hand the moves to the writer
+     */
+    void endGame() {
+        if (pendingGame || board == null) {
+            return;
+        }
+        reserve();
+        putVarint(END);
+        putTime(board.getState() == GameState.WON ? board.getFinishTime() : board.getTimer().getElapsedMillis());
+        handOff(null);
+    }
+
+    /**
+     * Write the moves recorded so far, waiting for the writer
+     *
+     * @throws IOException if the journal could not be written
+     */
+    public void flush() throws IOException {
+        sync(false);
+    }
+
+    /**
+     * Write the moves recorded so far and close the file, the board stops
+     * recording its moves
+     *
+     * @throws IOException if the journal could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (board != null) {
+            board.setJournal(null);
+        }
+        sync(true);
+    }
+
+    private void sync(boolean close) throws IOException {
+        CountDownLatch done = new CountDownLatch(1);
+        handOff(new Chunk(this, null, done, close));
+        try {
+            done.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing the journal", ex);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Give the buffer to the writer, followed by an optional marker
+     *
+     * @param marker
+     */
+    private void handOff(Chunk marker) {
+        if (position > 0) {
+            WRITER.submit(new Chunk(this, ByteBuffer.wrap(buffer, 0, position), null, false));
+            size += position;
+            buffer = new byte[CHUNK];
+            position = 0;
+        }
+        if (marker != null) {
+            WRITER.submit(marker);
+        }
+    }
+
+    /**
+     * Make room for a record, handing the buffer to the writer if full
+     */
+    private void reserve() {
+        if (buffer.length - position < MAX_RECORD) {
+            handOff(null);
+        }
+    }
+
+    private void putGame() {
+        pendingGame = false;
+        lastTime = 0;
+        nbGame++;
+        boolean pyramid = board instanceof BoardPyramid;
+        putVarint(GAME);
+        buffer[position++] = (byte) (pyramid ? 1 : 0);
+        putVarint(board.getNbRow());
+        putVarint(pyramid ? 0 : board.getNbCol(0));
+        putVarint(board.getNbBomb());
+        putInt((int) (board.getSeed() >>> 32));
+        putInt((int) board.getSeed());
+        putVarint(board.getOpening() + 1L);
+        buffer[position++] = (byte) (board.isPlaced() ? 1 : 0);
+        buffer[position++] = (byte) board.getRandomKind().ordinal();
+    }
+
+    private void putTime(long time) {
+        long delta = time - lastTime;
+        lastTime = time;
+        putVarint(delta << 1 ^ delta >> 63);
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void putInt(int value) {
+        buffer[position++] = (byte) (value >>> 24);
+        buffer[position++] = (byte) (value >>> 16);
+        buffer[position++] = (byte) (value >>> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Buffer handed to the writer, or marker waited for by a flush
+     */
+    private static final class Chunk {
+
+        private final MoveJournal journal;
+        private final ByteBuffer data;
+        private final CountDownLatch done;
+        private final boolean close;
+
+        private Chunk(MoveJournal journal, ByteBuffer data, CountDownLatch done, boolean close) {
+            this.journal = journal;
+            this.data = data;
+            this.done = done;
+            this.close = close;
+        }
+    }
+
+    /**
+     * Thread writing the buffers of all the journals, the buffers of a
+     * journal waiting together are written in one call
+     */
+    private static final class Writer {
+
+        private final BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();
+        private Thread thread;
+
+        private void submit(Chunk chunk) {
+            synchronized (this) {
+                if (thread == null) {
+                    thread = new Thread(this::loop, "move-journal-writer");
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            }
+            queue.add(chunk);
+        }
+
+        private void loop() {
+            List<Chunk> batch = new ArrayList<>();
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch);
+                    int i = 0;
+                    while (i < batch.size()) {
+                        i = write(batch, i);
+                    }
+                    batch.clear();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Write the buffers of a journal following each other in the batch,
+         * or run a marker
+         *
+         * @return the index of the next chunk to handle
+         */
+        private int write(List<Chunk> batch, int from) {
+            Chunk first = batch.get(from);
+            MoveJournal journal = first.journal;
+            if (first.data == null) {
+                if (first.close) {
+                    try {
+                        journal.channel.force(false);
+                        journal.channel.close();
+                    } catch (IOException ex) {
+                        fail(journal, ex);
+                    }
+                }
+                first.done.countDown();
+                return from + 1;
+            }
+            int to = from;
+            while (to < batch.size() && batch.get(to).journal == journal && batch.get(to).data != null) {
+                to++;
+            }
+            ByteBuffer[] data = new ByteBuffer[to - from];
+            long remaining = 0;
+            for (int i = from; i < to; i++) {
+                data[i - from] = batch.get(i).data;
+                remaining += data[i - from].remaining();
+            }
+            try {
+                while (journal.failure == null && remaining > 0) {
+                    remaining -= journal.channel.write(data);
+                }
+            } catch (IOException ex) {
+                fail(journal, ex);
+            }
+            return to;
+        }
+
+        private void fail(MoveJournal journal, IOException ex) {
+            if (journal.failure == null) {
+                journal.failure = ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replay the games of a {@link MoveJournal} on headless boards
+ *
+ * Each game is rebuilt from its seed, then its moves are applied one by one
+ * or fast-forwarded in a batch, which sends no notification until the end.
+ * The boards go through the same states as the boards recorded. A journal cut
+ * in the middle of a record (e.g. by a crash) ends at the last whole record.
+ */
+public class MoveReplayer {
+
+    private static final GameEngine.Move[] MOVES = GameEngine.Move.values();
+
+    private final ByteBuffer data;
+    private Board board;
+    private long nbGame;
+    private long nbMove;
+    private GameEngine.Move lastMove;
+    private int lastIndex = -1;
+    private long time;
+
+    /**
+     * Constructor
+     *
+     * @param data the bytes of the journal
+     * @throws IOException if the bytes are not a journal
+     */
+    public MoveReplayer(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < 5 || data.getInt() != MoveJournal.MAGIC) {
+            throw new IOException("Not a move journal");
+        }
+        byte version = data.get();
+        if (version != MoveJournal.VERSION) {
+            throw new IOException("Unknown version of move journal : " + version);
+        }
+    }
+
+    /**
+     * Open a journal, mapping its file in memory
+     *
+     * @param file
+     * @return
+     * @throws IOException if the file can not be read or is not a journal
+     */
+    public static MoveReplayer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large to be mapped : " + file);
+            }
+            return new MoveReplayer(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /**
+     * Return the board of the current game
+     *
+     * @return null before the first game
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Return the number of games started
+     *
+     * @return
+     */
+    public long getNbGame() {
+        return nbGame;
+    }
+
+    /**
+     * Return the number of moves applied in the current game
+     *
+     * @return
+     */
+    public long getNbMove() {
+        return nbMove;
+    }
+
+    public GameEngine.Move getLastMove() {
+        return lastMove;
+    }
+
+    /**
+     * Return the case of the last move
+     *
+     * @return its index, -1 if no move was applied
+     */
+    public int getLastIndex() {
+        return lastIndex;
+    }
+
+    /**
+     * Return the time of the last record on the timer of the game
+     *
+     * @return the time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Skip the moves left in the current game and start the next one
+     *
+     * @return false at the end of the journal
+     */
+    public boolean nextGame() {
+        while (step()) {
+            // skip the rest of the game
+        }
+        if (!data.hasRemaining()) {
+            return false;
+        }
+        int start = data.position();
+        try {
+            if (getVarint() != MoveJournal.GAME) {
+                throw corrupted(start);
+            }
+            boolean pyramid = data.get() == 1;
+            int rows = (int) getVarint();
+            int cols = (int) getVarint();
+            int bombs = (int) getVarint();
+            long seed = data.getLong();
+            int opening = (int) getVarint() - 1;
+            boolean placed = data.get() == 1;
+            BombRandom.Kind kind = BombRandom.Kind.valueOf(data.get());
+
+            Board b = pyramid ? new BoardPyramid(rows, bombs) : new Board2D(rows, cols, bombs);
+            b.setRandomKind(kind);
+            if (placed) {
+                b.resetBoard(seed, opening);
+            } else {
+                b.restore(seed, -1, false, GameState.RUNNING);
+            }
+            this.board = b;
+        } catch (BufferUnderflowException ex) {
+            data.position(data.limit()); // cut in the middle of the record
+            return false;
+        }
+        nbGame++;
+        nbMove = 0;
+        lastMove = null;
+        lastIndex = -1;
+        time = 0;
+        return true;
+    }
+
+    /**
+     * Apply the next move of the current game
+     *
+     * @return false if the game has no more move
+     */
+    public boolean step() {
+        if (board == null) {
+            return false;
+        }
+        while (data.hasRemaining()) {
+            int start = data.position();
+            try {
+                long tag = getVarint();
+                if (tag == MoveJournal.GAME) {
+                    data.position(start);
+                    return false;
+                }
+                if (tag == MoveJournal.PLACE) {
+                    long seed = data.getLong();
+                    board.placeBombs(seed, (int) getVarint() - 1);
+                    continue;
+                }
+                long delta = getVarint();
+                time += delta >>> 1 ^ -(delta & 1);
+                if (tag == MoveJournal.END) {
+                    end();
+                    continue;
+                }
+                int kind = (int) (tag & MoveJournal.CONTROL);
+                long index = tag >>> 2;
+                if (kind == MoveJournal.CONTROL || index >= board.getNbCase()) {
+                    throw corrupted(start);
+                }
+                apply(MOVES[kind], (int) index);
+                return true;
+            } catch (BufferUnderflowException ex) {
+                data.position(data.limit());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apply moves of the current game in a batch
+     *
+     * @param nbMoves maximum number of moves
+     * @return the number of moves applied
+     */
+    public long fastForward(long nbMoves) {
+        long n = 0;
+        board.beginBatch();
+        try {
+            while (n < nbMoves && step()) {
+                n++;
+            }
+        } finally {
+            board.endBatch();
+        }
+        return n;
+    }
+
+    /**
+     * Apply in a batch the moves of the current game played up to a time
+     *
+     * @param millis time on the timer of the game
+     * @return the number of moves applied
+     */
+    public long fastForwardTo(long millis) {
+        long n = 0;
+        board.beginBatch();
+        try {
+            while (data.hasRemaining() && peekTime() <= millis && step()) {
+                n++;
+            }
+        } finally {
+            board.endBatch();
+        }
+        return n;
+    }
+
+    /**
+     * Return the time of the next record, without reading it
+     */
+    private long peekTime() {
+        int start = data.position();
+        try {
+            long tag = getVarint();
+            while (tag == MoveJournal.PLACE) {
+                data.getLong(); // applied with the move following it
+                getVarint();
+                tag = getVarint();
+            }
+            if (tag == MoveJournal.GAME) {
+                return Long.MAX_VALUE;
+            }
+            long delta = getVarint();
+            return time + (delta >>> 1 ^ -(delta & 1));
+        } catch (BufferUnderflowException ex) {
+            return Long.MAX_VALUE;
+        } finally {
+            data.position(start);
+        }
+    }
+
+    private void apply(GameEngine.Move move, int index) {
+        int row = board.rowOf(index);
+        int col = index - board.indexOf(row, 0);
+        switch (move) {
+            case REVEAL:
+                board.leftClick(row, col);
+                break;
+            case FLAG:
+                board.rightClick(row, col);
+                break;
+            default:
+                board.chord(row, col);
+                break;
+        }
+        nbMove++;
+        lastMove = move;
+        lastIndex = index;
+    }
+
+    /**
+     * Put the time of the end on the timer, so that a won game gets the same
+     * time and score
+     */
+    private void end() {
+        board.getTimer().restore(time);
+        if (board.getState() == GameState.WON) {
+            board.restore(board.getSeed(), board.getOpening(), true, GameState.WON);
+        }
+    }
+
+    private long getVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw corrupted(data.position());
+    }
+
+    private IllegalStateException corrupted(int position) {
+        return new IllegalStateException("Corrupted move journal at byte " + position);
+    }
+}
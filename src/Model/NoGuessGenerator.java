@@ -0,0 +1,205 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generate boards that can be solved without guessing from a first click
+ *
+ * Candidate placements are drawn from a seed and played by the
+ * {@link Solver} on copies of the board, on all the threads of a fork-join
+ * pool. A candidate is valid when the solver wins it from the first click.
+ * The candidates are numbered and the valid one with the smallest number is
+ * kept, so the same seed gives the same board when the search ends before its
+ * time budget. The search is bounded in time and skipped on large boards, the
+ * bombs being then placed at random, so the first click never stalls the
+ * game.
+ */
+public class NoGuessGenerator {
+
+    /**
+     * Default number of candidates tried before giving up
+     */
+    public static final int DEFAULT_MAX_CANDIDATES = 100000;
+    /**
+     * Default time given to the search
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 500;
+    /**
+     * Default number of cases beyond which no search is done
+     */
+    public static final int DEFAULT_MAX_CASES = 40000;
+
+    private final ForkJoinPool pool;
+    private final int maxCandidates;
+    private final long budgetNanos;
+    private final int maxCases;
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong nanos = new AtomicLong();
+
+    public NoGuessGenerator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_CANDIDATES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pool the threads trying the candidates
+     * @param maxCandidates number of candidates tried before giving up
+     */
+    public NoGuessGenerator(ForkJoinPool pool, int maxCandidates) {
+        this(pool, maxCandidates, DEFAULT_BUDGET_MILLIS, DEFAULT_MAX_CASES);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param pool the threads trying the candidates
+     * @param maxCandidates number of candidates tried before giving up
+     * @param budgetMillis time of the search before giving up
+     * @param maxCases number of cases beyond which no search is done
+     */
+    public NoGuessGenerator(ForkJoinPool pool, int maxCandidates, long budgetMillis, int maxCases) {
+        this.pool = pool;
+        this.maxCandidates = maxCandidates;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.maxCases = maxCases;
+    }
+
+    /**
+     * Place on the board bombs that need no guess when the given case is
+     * clicked first. The case is not clicked. The flags of a board without
+     * bombs are kept, a board with bombs is reset first
+     *
+     * @param board
+     * @param row row of the first click
+     * @param col column of the first click
+     * @param seed
+     * @return true if a board was found, false if the bombs were placed at
+     * random from the seed (away from the case), which may need a guess
+     */
+    public boolean generate(Board board, int row, int col, long seed) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int opening = board.indexOf(row, col);
+        if (board.isPlaced()) {
+            board.resetBoard();
+        }
+        if (board.getNbCase() > maxCases) {
+            board.placeBombs(seed, opening);
+            nanos.addAndGet(System.nanoTime() - start);
+            return false;
+        }
+        AtomicLong next = new AtomicLong();
+        AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int w = 0; w < pool.getParallelism(); w++) {
+            workers.add(pool.submit(() -> {
+                Board copy = sameShape(board);
+                long i;
+                while (System.nanoTime() - deadline < 0
+                        && (i = next.getAndIncrement()) < Math.min(best.get(), maxCandidates)) {
+                    candidates.incrementAndGet();
+                    if (solvable(copy, candidate(seed, i), opening)) {
+                        best.accumulateAndGet(i, Math::min);
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (ForkJoinTask<?> w : workers) {
+            w.join();
+        }
+        boolean found = best.get() != Long.MAX_VALUE;
+        if (found) {
+            board.placeBombs(candidate(seed, best.get()), opening);
+            generated.incrementAndGet();
+        } else {
+            board.placeBombs(seed, opening);
+        }
+        nanos.addAndGet(System.nanoTime() - start);
+        return found;
+    }
+
+    /**
+     * Return the seed of a candidate, each one is drawn independently from
+     * the seed of the generation
+     */
+    private static long candidate(long seed, long i) {
+        return XoroshiroRandom.mix(seed ^ i * 0x9E3779B97F4A7C15L);
+    }
+
+    private static boolean solvable(Board copy, long seed, int opening) {
+        copy.resetBoard(seed, opening);
+        copy.leftClick(copy.rowOf(opening), copy.colOf(opening));
+        Solver solver = new Solver(copy);
+        GameState state = solver.solve();
+        solver.detach();
+        return state == GameState.WON;
+    }
+
+    /**
+     * Return an empty board of the same shape, number of bombs and generator
+     */
+    private static Board sameShape(Board board) {
+        Board copy;
+        if (board instanceof BoardPyramid) {
+            copy = new BoardPyramid(board.getNbRow(), board.getNbBomb());
+        } else {
+            copy = new Board2D(board.getNbRow(), board.getNbCol(0), board.getNbBomb());
+        }
+        copy.setRandomKind(board.getRandomKind());
+        return copy;
+    }
+
+    /**
+     * Return the number of candidates tried since the creation
+     *
+     * @return
+     */
+    public long getNbCandidate() {
+        return candidates.get();
+    }
+
+    /**
+     * Return the share of the candidates that needed a guess
+     *
+     * @return
+     */
+    public double getRejectionRate() {
+        long c = candidates.get();
+        return c == 0 ? 0 : rejected.get() / (double) c;
+    }
+
+    /**
+     * Return the number of valid boards generated per second
+     *
+     * @return
+     */
+    public double getBoardsPerSecond() {
+        long n = nanos.get();
+        return n == 0 ? 0 : generated.get() * 1e9 / n;
+    }
+
+    /**
+     * Return the number of candidates tried per second
+     *
+     * @return
+     */
+    public double getCandidatesPerSecond() {
+        long n = nanos.get();
+        return n == 0 ? 0 : candidates.get() * 1e9 / n;
+    }
+}
@@ -0,0 +1,626 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Probability of bomb of each hidden case, to make the safest guess when the
+ * {@link Solver} is stuck
+ *
+ * The hidden cases next to a number (the frontier) are split in independent
+ * components : two cases are in the same component when a number sees both.
+ * Each component is enumerated by backtracking, on a fork-join pool, which
+ * counts its solutions per number of bombs. The counts are then combined
+ * with the number of bombs left on the board, the other hidden cases sharing
+ * the bombs not in the frontier. The result of a component only depends on
+ * its cases and numbers, it is kept and reused as long as the component does
+ * not change. A component too big to be enumerated in time is counted with
+ * the cases far from any number, as when the time budget runs out.
+ *
+ * Like the solver, only reads what the player sees and trusts the flags.
+ */
+public class ProbabilitySolver {
+
+    /**
+     * Number of component results kept
+     */
+    private static final int MAX_MEMO = 4096;
+    /**
+     * Number of backtracking steps between two checks of the time budget
+     */
+    private static final int CHECK_PERIOD = 1 << 12;
+    /**
+     * Number of cases above which a component is not enumerated
+     */
+    private static final int MAX_COMPONENT = 256;
+
+    private final Board board;
+    private final ForkJoinPool pool;
+    private final Map<Key, Counts> memo = new ConcurrentHashMap<>();
+
+    public ProbabilitySolver(Board board) {
+        this(board, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param board
+     * @param pool the pool enumerating the components
+     */
+    public ProbabilitySolver(Board board, ForkJoinPool pool) {
+        this.board = board;
+        this.pool = pool;
+    }
+
+    /**
+     * Probabilities computed by {@link #solve(long)}
+     */
+    public static final class Result {
+
+        private final double[] probability;
+        private final BitSet hidden; // hidden cases not flagged
+        private final int nbComponent;
+        private final boolean complete;
+
+        private Result(double[] probability, BitSet hidden, int nbComponent, boolean complete) {
+            this.probability = probability;
+            this.hidden = hidden;
+            this.nbComponent = nbComponent;
+            this.complete = complete;
+        }
+
+        /**
+         * Return the probability that a case is a bomb : 0 for a visible
+         * case, 1 for a flag, NaN if the flags contradict the numbers
+         *
+         * @param index
+         * @return
+         */
+        public double getProbability(int index) {
+            return probability[index];
+        }
+
+        /**
+         * Return the hidden case not flagged least likely to be a bomb, a
+         * case certainly safe if there is one
+         *
+         * @return its index, -1 if there is none
+         */
+        public int getSafest() {
+            int best = -1;
+            for (int i = hidden.nextSetBit(0); i >= 0; i = hidden.nextSetBit(i + 1)) {
+                if (!Double.isNaN(probability[i]) && (best < 0 || probability[i] < probability[best])) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+
+        public int getNbComponent() {
+            return nbComponent;
+        }
+
+        /**
+         * Return false if the time budget ran out : the cases of the
+         * components not enumerated were counted as far from any number
+         *
+         * @return
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * A component of the frontier, read from the board
+     */
+    private static final class Component {
+
+        private final IntList cases = new IntList();
+        private final List<int[]> constraints = new ArrayList<>(); // local ids of the cases
+        private final IntList bombs = new IntList(); // bombs left of each constraint
+    }
+
+    /**
+     * Identity of a component : its cases and numbers
+     */
+    private static final class Key {
+
+        private final int[] data;
+        private final int hash;
+
+        private Key(int[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && Arrays.equals(data, ((Key) o).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Solutions of a component per number of bombs, scaled by the largest
+     * count so that big components do not overflow
+     */
+    private static final class Counts {
+
+        private final double[] solutions; // [bombs]
+        private final double[][] perCase; // [bombs][case], null without solution
+
+        private Counts(double[] solutions, double[][] perCase) {
+            this.solutions = solutions;
+            this.perCase = perCase;
+        }
+    }
+
+    /**
+     * Compute the probabilities. Reads the board on the calling thread, which
+     * must be the one changing it, then enumerates on the pool
+     *
+     * @param budgetMillis time allowed to enumerate the components
+     * @return
+     */
+    public Result solve(long budgetMillis) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        int nbCase = board.getNbCase();
+        double[] probability = new double[nbCase];
+        BitSet hidden = new BitSet(nbCase);
+        List<Component> components = readFrontier(probability, hidden);
+
+        List<ForkJoinTask<Counts>> tasks = new ArrayList<>();
+        for (Component c : components) {
+            tasks.add(pool.submit(new Enumeration(c, deadline)));
+        }
+        int outside = 0; // hidden cases next to no number
+        for (int i = 0; i < nbCase; i++) {
+            if (Double.isNaN(probability[i])) {
+                outside++;
+            }
+        }
+        for (Component c : components) {
+            outside -= c.cases.size();
+        }
+        List<Counts> counts = new ArrayList<>();
+        List<Component> solved = new ArrayList<>();
+        for (int i = 0; i < components.size(); i++) {
+            Counts r = tasks.get(i).join();
+            if (r == null) {
+                // out of time or too big : its cases are guessed like the others
+                outside += components.get(i).cases.size();
+            } else {
+                counts.add(r);
+                solved.add(components.get(i));
+            }
+        }
+        combine(solved, counts, outside, board.getNbBomb() - board.getNbFlag(), probability);
+        return new Result(probability, hidden, components.size(), solved.size() == components.size());
+    }
+
+    /**
+     * Split the frontier in components
+     *
+     * @param probability filled with 0 for the visible cases, 1 for the flags
+     * and NaN for the other hidden cases
+     * @param hidden filled with the hidden cases not flagged
+     * @return
+     */
+    private List<Component> readFrontier(double[] probability, BitSet hidden) {
+        CellStore cells = board.cells;
+        int nbCase = board.getNbCase();
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int[] parent = new int[nbCase];
+        for (int i = 0; i < nbCase; i++) {
+            parent[i] = i;
+            if (cells.is(i, CellStore.FLAG) && !cells.is(i, CellStore.VISIBLE)) {
+                probability[i] = 1;
+            } else {
+                probability[i] = cells.is(i, CellStore.VISIBLE) ? 0 : Double.NaN;
+                hidden.set(i, !cells.is(i, CellStore.VISIBLE));
+            }
+        }
+        // union the hidden cases seen by the same number
+        IntList numbers = new IntList();
+        for (int i = 0; i < nbCase; i++) {
+            if (!cells.is(i, CellStore.VISIBLE) || cells.is(i, CellStore.TRAP) || cells.getNbBomb(i) == 0) {
+                continue;
+            }
+            int n = board.neighbours(i, around);
+            int first = -1;
+            for (int k = 0; k < n; k++) {
+                if (Double.isNaN(probability[around[k]])) {
+                    if (first < 0) {
+                        first = around[k];
+                        numbers.add(i);
+                    } else {
+                        union(parent, first, around[k]);
+                    }
+                }
+            }
+        }
+        // build the components, in the order of their first number
+        int[] componentOf = new int[nbCase];
+        int[] local = new int[nbCase]; // id of each case in its component
+        Arrays.fill(componentOf, -1);
+        Arrays.fill(local, -1);
+        List<Component> components = new ArrayList<>();
+        for (int j = 0; j < numbers.size(); j++) {
+            int c = numbers.get(j);
+            int n = board.neighbours(c, around);
+            int left = cells.getNbBomb(c);
+            int[] constraint = new int[n];
+            int size = 0;
+            Component comp = null;
+            for (int k = 0; k < n; k++) {
+                int a = around[k];
+                if (probability[a] == 1) {
+                    left--;
+                } else if (Double.isNaN(probability[a])) {
+                    int root = find(parent, a);
+                    if (componentOf[root] < 0) {
+                        componentOf[root] = components.size();
+                        components.add(new Component());
+                    }
+                    comp = components.get(componentOf[root]);
+                    if (local[a] < 0) {
+                        local[a] = comp.cases.size();
+                        comp.cases.add(a);
+                    }
+                    constraint[size++] = local[a];
+                }
+            }
+            comp.constraints.add(Arrays.copyOf(constraint, size));
+            comp.bombs.add(left);
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    /**
+     * Backtracking over the cases of a component, without recursion so that
+     * the stack does not grow with the component
+     */
+    private final class Enumeration extends RecursiveTask<Counts> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Component comp;
+        private final long deadline;
+        private int[][] casesConstraints; // constraints of each case
+        private int[] order;
+        private int[] mines; // bombs placed around each constraint
+        private int[] free; // cases not decided around each constraint
+        private boolean[] bomb;
+        private double[] solutions;
+        private double[][] perCase;
+
+        private Enumeration(Component comp, long deadline) {
+            this.comp = comp;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Counts compute() {
+            Key key = key();
+            Counts known = memo.get(key);
+            if (known != null) {
+                return known;
+            }
+            int n = comp.cases.size();
+            if (n > MAX_COMPONENT) {
+                return null;
+            }
+            int nbConstraint = comp.constraints.size();
+            int[] degree = new int[n];
+            for (int[] c : comp.constraints) {
+                for (int v : c) {
+                    degree[v]++;
+                }
+            }
+            casesConstraints = new int[n][];
+            for (int v = 0; v < n; v++) {
+                casesConstraints[v] = new int[degree[v]];
+                degree[v] = 0;
+            }
+            mines = new int[nbConstraint];
+            free = new int[nbConstraint];
+            for (int c = 0; c < nbConstraint; c++) {
+                for (int v : comp.constraints.get(c)) {
+                    casesConstraints[v][degree[v]++] = c;
+                }
+                free[c] = comp.constraints.get(c).length;
+            }
+            order = order(n);
+            bomb = new boolean[n];
+            solutions = new double[n + 1];
+            perCase = new double[n + 1][];
+            if (!search()) {
+                return null;
+            }
+            double max = 0;
+            for (double s : solutions) {
+                max = Math.max(max, s);
+            }
+            if (max > 0) {
+                for (int k = 0; k < solutions.length; k++) {
+                    solutions[k] /= max;
+                }
+                for (double[] row : perCase) {
+                    if (row != null) {
+                        for (int v = 0; v < n; v++) {
+                            row[v] /= max;
+                        }
+                    }
+                }
+            }
+            Counts counts = new Counts(solutions, perCase);
+            if (memo.size() >= MAX_MEMO) {
+                memo.clear();
+            }
+            memo.put(key, counts);
+            return counts;
+        }
+
+        /**
+         * Order the cases so that each one shares a number with the previous
+         * ones, the constraints are then checked early
+         */
+        private int[] order(int n) {
+            int[] result = new int[n];
+            boolean[] seen = new boolean[n];
+            int size = 0;
+            for (int start = 0; start < n; start++) {
+                if (seen[start]) {
+                    continue;
+                }
+                seen[start] = true;
+                result[size++] = start;
+                for (int head = size - 1; head < size; head++) {
+                    for (int c : casesConstraints[result[head]]) {
+                        for (int v : comp.constraints.get(c)) {
+                            if (!seen[v]) {
+                                seen[v] = true;
+                                result[size++] = v;
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Count the solutions, depth first
+         *
+         * @return false if the time budget ran out
+         */
+        private boolean search() {
+            int n = order.length;
+            int[] next = new int[n + 1]; // next value to try at each position
+            int pos = 0;
+            int nbMines = 0;
+            int steps = 0;
+            while (pos >= 0) {
+                if ((++steps & (CHECK_PERIOD - 1)) == 0 && System.nanoTime() > deadline) {
+                    return false;
+                }
+                if (pos == n) {
+                    count(nbMines);
+                    pos--;
+                    continue;
+                }
+                int v = order[pos];
+                if (next[pos] > 0) {
+                    // back from the value tried last
+                    int value = next[pos] - 1;
+                    assign(v, value, -1);
+                    nbMines -= value;
+                }
+                boolean down = false;
+                while (!down && next[pos] <= 1) {
+                    int value = next[pos]++;
+                    if (fits(v, value)) {
+                        assign(v, value, 1);
+                        nbMines += value;
+                        next[++pos] = 0;
+                        down = true;
+                    }
+                }
+                if (!down) {
+                    next[pos--] = 0;
+                }
+            }
+            return true;
+        }
+
+        private void count(int nbMines) {
+            solutions[nbMines]++;
+            double[] row = perCase[nbMines];
+            if (row == null) {
+                row = new double[order.length];
+                perCase[nbMines] = row;
+            }
+            for (int v = 0; v < row.length; v++) {
+                if (bomb[v]) {
+                    row[v]++;
+                }
+            }
+        }
+
+        /**
+         * Return true if the numbers of the case can still be satisfied with
+         * this value
+         */
+        private boolean fits(int v, int value) {
+            for (int c : casesConstraints[v]) {
+                int m = mines[c] + value;
+                int left = comp.bombs.get(c);
+                if (m > left || m + free[c] - 1 < left) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void assign(int v, int value, int way) {
+            bomb[v] = way > 0 && value == 1;
+            for (int c : casesConstraints[v]) {
+                mines[c] += way * value;
+                free[c] -= way;
+            }
+        }
+
+        private Key key() {
+            int size = 1 + comp.cases.size();
+            for (int[] c : comp.constraints) {
+                size += 2 + c.length;
+            }
+            int[] data = new int[size];
+            int k = 0;
+            data[k++] = comp.cases.size();
+            for (int i = 0; i < comp.cases.size(); i++) {
+                data[k++] = comp.cases.get(i);
+            }
+            for (int i = 0; i < comp.constraints.size(); i++) {
+                int[] c = comp.constraints.get(i);
+                data[k++] = comp.bombs.get(i);
+                data[k++] = c.length;
+                for (int v : c) {
+                    data[k++] = v;
+                }
+            }
+            return new Key(data);
+        }
+    }
+
+    /**
+     * Combine the components with the bombs left : a configuration with K
+     * bombs in the frontier is weighted by the ways to place the others
+     * outside, C(outside, left - K)
+     *
+     * @param comps
+     * @param counts
+     * @param outside number of hidden cases next to no number
+     * @param left bombs not flagged
+     * @param probability filled for the cases of the components and outside
+     */
+    private static void combine(List<Component> comps, List<Counts> counts, int outside, int left,
+            double[] probability) {
+        int m = counts.size();
+        // prefix[i] : distribution of the bombs in components 0..i-1
+        double[][] prefix = new double[m + 1][];
+        prefix[0] = new double[]{1};
+        for (int i = 0; i < m; i++) {
+            prefix[i + 1] = convolve(prefix[i], counts.get(i).solutions);
+        }
+        double[][] suffix = new double[m + 1][];
+        suffix[m] = new double[]{1};
+        for (int i = m - 1; i >= 0; i--) {
+            suffix[i] = convolve(suffix[i + 1], counts.get(i).solutions);
+        }
+        double[] all = prefix[m];
+        double[] weight = weights(all.length, outside, left);
+        double total = 0;
+        double outsideBombs = 0;
+        for (int k = 0; k < all.length; k++) {
+            total += all[k] * weight[k];
+            outsideBombs += all[k] * weight[k] * (left - k);
+        }
+        if (total == 0) {
+            return; // the flags contradict the numbers, everything stays NaN
+        }
+        for (int i = 0; i < probability.length; i++) {
+            if (Double.isNaN(probability[i])) {
+                probability[i] = outsideBombs / total / outside;
+            }
+        }
+        for (int i = 0; i < m; i++) {
+            double[] others = convolve(prefix[i], suffix[i + 1]);
+            Counts c = counts.get(i);
+            IntList cases = comps.get(i).cases;
+            int n = cases.size();
+            for (int v = 0; v < n; v++) {
+                double p = 0;
+                for (int k = 0; k <= n; k++) {
+                    double s = c.perCase[k] == null ? 0 : c.perCase[k][v];
+                    if (s == 0) {
+                        continue;
+                    }
+                    for (int o = 0; o < others.length; o++) {
+                        p += s * others[o] * weight[k + o];
+                    }
+                }
+                probability[cases.get(v)] = p / total;
+            }
+        }
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] r = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != 0) {
+                for (int j = 0; j < b.length; j++) {
+                    r[i + j] += a[i] * b[j];
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Return C(outside, left - k) for each k, scaled by the largest one
+     */
+    private static double[] weights(int size, int outside, int left) {
+        double[] log = new double[size];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < size; k++) {
+            int r = left - k;
+            log[k] = r < 0 || r > outside ? Double.NEGATIVE_INFINITY : logChoose(outside, r);
+            max = Math.max(max, log[k]);
+        }
+        double[] w = new double[size];
+        for (int k = 0; k < size; k++) {
+            w[k] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(log[k] - max);
+        }
+        return w;
+    }
+
+    private static double logChoose(int n, int k) {
+        k = Math.min(k, n - k);
+        double r = 0;
+        for (int i = 1; i <= k; i++) {
+            r += Math.log(n - k + i) - Math.log(i);
+        }
+        return r;
+    }
+}
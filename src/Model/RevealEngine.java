@@ -0,0 +1,166 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Discover the cases of a board, cascading through the empty cases
+ *
+ * The cascade is iterative and breadth first : only the empty cases waiting
+ * to be expanded are queued, in a ring reused from one click to the next, so
+ * the memory follows the border of the area and not its size (a board larger
+ * than the heap opens without running out of it).
+ *
+ * The cases revealed are listed up to {@link Board#MAX_CHANGED} of them,
+ * past which only their number is kept.
+ */
+public class RevealEngine {
+
+    private final Board board;
+    /**
+     * Empty cases discovered and not expanded yet, from head to tail
+     */
+    private int[] queue = new int[64];
+    private int head;
+    private int tail;
+    /**
+     * Cases revealed by the last call, in discovery order, cleared past the
+     * limit
+     */
+    private final IntList revealed = new IntList();
+    private int nbRevealed;
+    private final int[] around = new int[Board.MAX_NEIGHBOURS];
+
+    public RevealEngine(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Discover a case and, if it has no bomb around, all the empty area
+     * connected to it
+     *
+     * @param index the case clicked
+     * @return the cases newly revealed, valid until the next call, null if
+     * there are more than {@link Board#MAX_CHANGED}
+     */
+    public IntList reveal(int index) {
+        start();
+        if (isHidden(index)) {
+            discover(index);
+            cascade();
+        }
+        return getRevealed();
+    }
+
+    /**
+     * Discover the neighbours of a case and cascade through the empty ones
+     *
+     * @param index
+     * @return the cases newly revealed, valid until the next call, null if
+     * there are more than {@link Board#MAX_CHANGED}
+     */
+    public IntList revealNeighbours(int index) {
+        start();
+        if (!board.cells.is(index, CellStore.TRAP)) {
+            discoverAround(index);
+            cascade();
+        }
+        return getRevealed();
+    }
+
+    /**
+     * Return the cases revealed by the last call
+     *
+     * @return null if there are more than {@link Board#MAX_CHANGED}
+     */
+    public IntList getRevealed() {
+        return nbRevealed > Board.MAX_CHANGED ? null : revealed;
+    }
+
+    /**
+     * Return the number of cases revealed by the last call
+     *
+     * @return
+     */
+    public int getNbRevealed() {
+        return nbRevealed;
+    }
+
+    private void start() {
+        revealed.clear();
+        nbRevealed = 0;
+    }
+
+    /**
+     * Expand the queued empty cases, the queue growing as new ones are
+     * discovered
+     */
+    private void cascade() {
+        while (head != tail) {
+            int c = queue[head];
+            head = (head + 1) & (queue.length - 1);
+            discoverAround(c);
+        }
+    }
+
+    /**
+     * Discover a case, queuing it if it has no bomb around
+     *
+     * @param index
+     */
+    private void discover(int index) {
+        board.discover(index);
+        if (++nbRevealed <= Board.MAX_CHANGED) {
+            revealed.add(index);
+        } else if (nbRevealed == Board.MAX_CHANGED + 1) {
+            revealed.clear();
+        }
+        if (board.cells.getNbBomb(index) == 0 && !board.cells.is(index, CellStore.TRAP)) {
+            queue[tail] = index;
+            tail = (tail + 1) & (queue.length - 1);
+            if (tail == head) {
+                grow();
+            }
+        }
+    }
+
+    /**
+     * Double the ring, which is full
+     */
+    private void grow() {
+        int[] bigger = new int[queue.length * 2];
+        int n = queue.length - head;
+        System.arraycopy(queue, head, bigger, 0, n);
+        System.arraycopy(queue, 0, bigger, n, head);
+        head = 0;
+        tail = queue.length;
+        queue = bigger;
+    }
+
+    /**
+     * Discover the hidden neighbours of a case and queue them
+     *
+     * @param index
+     */
+    private void discoverAround(int index) {
+        int nb = board.neighbours(index, around);
+        for (int k = 0; k < nb; k++) {
+            int n = around[k];
+            if (isHidden(n)) {
+                discover(n);
+            }
+        }
+    }
+
+    /**
+     * A case can be revealed if it is neither visible nor flagged
+     *
+     * @param index
+     * @return
+     */
+    private boolean isHidden(int index) {
+        return (board.cells.get(index) & (CellStore.VISIBLE | CellStore.FLAG)) == 0;
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.BitSet;
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ * Deterministic solver : plays the moves that are certain from what the
+ * player sees
+ *
+ * Only reads the visible cases and the flags (the flags are trusted to be
+ * bombs), never the bombs hidden. Two rules are used on the numbers of the
+ * frontier :
+ * <ul>
+ * <li>single point : a number already satisfied by its flags makes its other
+ * hidden neighbours safe, a number needing all its hidden neighbours makes
+ * them bombs</li>
+ * <li>subset : when the hidden neighbours of a number are included in those
+ * of another, the difference holds the difference of the two numbers</li>
+ * </ul>
+ * The solver observes the board and only looks again at the numbers around
+ * the cases changed, so a move costs in proportion to the area it opened.
+ * Works on any shape of board, through {@link Board#neighbours(int, int[])}.
+ */
+public class Solver implements Observer {
+
+    private final Board board;
+    private final IntList todo = new IntList(); // numbers to look at
+    private final BitSet queued = new BitSet();
+    private final IntList safe = new IntList();
+    private final IntList mines = new IntList();
+    private final int[] around = new int[Board.MAX_NEIGHBOURS];
+    private final int[] aroundHidden = new int[Board.MAX_NEIGHBOURS];
+    private final int[] hidden = new int[Board.MAX_NEIGHBOURS];
+    private final int[] other = new int[Board.MAX_NEIGHBOURS];
+    private final int[] otherAround = new int[Board.MAX_NEIGHBOURS];
+    private int nbMove;
+
+    /**
+     * Constructor, the solver starts from the cases already visible
+     *
+     * @param board
+     */
+    public Solver(Board board) {
+        this.board = board;
+        board.addObserver(this);
+        queueAll();
+    }
+
+    /**
+     * Stop observing the board
+     */
+    public void detach() {
+        board.deleteObserver(this);
+    }
+
+    public int getNbMove() {
+        return nbMove;
+    }
+
+    @Override
+    public void update(Observable o, Object arg) {
+        int[] cases = (int[]) arg;
+        if (cases == null) {
+            queueAll();
+            return;
+        }
+        for (int c : cases) {
+            queue(c);
+            int n = board.neighbours(c, around);
+            for (int k = 0; k < n; k++) {
+                queue(around[k]);
+            }
+        }
+    }
+
+    /**
+     * Look again at a case if it is a number, its constraint may have changed
+     *
+     * @param index
+     */
+    private void queue(int index) {
+        if (isNumber(index) && !queued.get(index)) {
+            queued.set(index);
+            todo.add(index);
+        }
+    }
+
+    private void queueAll() {
+        for (int i = 0; i < board.getNbCase(); i++) {
+            queue(i);
+        }
+    }
+
+    private boolean isNumber(int index) {
+        return board.cells.is(index, CellStore.VISIBLE) && !board.cells.is(index, CellStore.TRAP)
+                && board.cells.getNbBomb(index) > 0;
+    }
+
+    private boolean isUnknown(int index) {
+        return !board.cells.is(index, CellStore.VISIBLE) && !board.cells.is(index, CellStore.FLAG);
+    }
+
+    /**
+     * Find the cases certain from the numbers queued, without playing them
+     *
+     * @return true if at least one case was found
+     */
+    public boolean deduce() {
+        safe.clear();
+        mines.clear();
+        for (int i = 0; i < todo.size(); i++) {
+            int c = todo.get(i);
+            queued.clear(c);
+            deduce(c);
+        }
+        todo.clear();
+        return !safe.isEmpty() || !mines.isEmpty();
+    }
+
+    /**
+     * Return the cases found safe by the last call to {@link #deduce()}
+     *
+     * @return indexes of the cases, may contain duplicates
+     */
+    public IntList getSafe() {
+        return safe;
+    }
+
+    /**
+     * Return the cases found to be bombs by the last call to
+     * {@link #deduce()}
+     *
+     * @return indexes of the cases, may contain duplicates
+     */
+    public IntList getMines() {
+        return mines;
+    }
+
+    /**
+     * Apply the rules to a number
+     *
+     * @param c index of the number
+     */
+    private void deduce(int c) {
+        int nbHidden = hidden(c, hidden, around);
+        if (nbHidden == 0) {
+            return;
+        }
+        int left = bombsLeft(c, around);
+        if (left == 0) {
+            addAll(safe, hidden, nbHidden);
+            return;
+        }
+        if (left == nbHidden) {
+            addAll(mines, hidden, nbHidden);
+            return;
+        }
+        // subset rule with the numbers sharing a hidden case with c
+        for (int h = 0; h < nbHidden; h++) {
+            int n = board.neighbours(hidden[h], aroundHidden);
+            for (int k = 0; k < n; k++) {
+                int d = aroundHidden[k];
+                if (d == c || !isNumber(d) || sharedBefore(d, h)) {
+                    continue;
+                }
+                int nbOther = hidden(d, other, otherAround);
+                int otherLeft = bombsLeft(d, otherAround);
+                if (includes(other, nbOther, hidden, nbHidden)) {
+                    difference(other, nbOther, hidden, nbHidden, otherLeft - left);
+                } else if (includes(hidden, nbHidden, other, nbOther)) {
+                    difference(hidden, nbHidden, other, nbOther, left - otherLeft);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if d is next to a hidden case of c before the h-th one, to
+     * compare each pair of numbers once
+     */
+    private boolean sharedBefore(int d, int h) {
+        for (int i = 0; i < h; i++) {
+            int n = board.neighbours(hidden[i], otherAround);
+            for (int k = 0; k < n; k++) {
+                if (otherAround[k] == d) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add the cases of the big set missing from the small one, when they hold
+     * no bomb or only bombs
+     *
+     * @param big
+     * @param nbBig
+     * @param small a subset of big
+     * @param nbSmall
+     * @param bombs number of bombs in the difference
+     */
+    private void difference(int[] big, int nbBig, int[] small, int nbSmall, int bombs) {
+        if (bombs != 0 && bombs != nbBig - nbSmall) {
+            return;
+        }
+        IntList found = bombs == 0 ? safe : mines;
+        for (int i = 0; i < nbBig; i++) {
+            if (!contains(small, nbSmall, big[i])) {
+                found.add(big[i]);
+            }
+        }
+    }
+
+    private static boolean includes(int[] big, int nbBig, int[] small, int nbSmall) {
+        if (nbSmall >= nbBig) {
+            return false;
+        }
+        for (int i = 0; i < nbSmall; i++) {
+            if (!contains(big, nbBig, small[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] set, int n, int value) {
+        for (int i = 0; i < n; i++) {
+            if (set[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void addAll(IntList list, int[] values, int n) {
+        for (int i = 0; i < n; i++) {
+            list.add(values[i]);
+        }
+    }
+
+    /**
+     * Collect the hidden, not flagged, neighbours of a number
+     *
+     * @param c index of the number
+     * @param out the hidden neighbours
+     * @param buffer filled with all the neighbours
+     * @return the number of hidden neighbours
+     */
+    private int hidden(int c, int[] out, int[] buffer) {
+        int n = board.neighbours(c, buffer);
+        int nb = 0;
+        for (int k = 0; k < n; k++) {
+            if (isUnknown(buffer[k])) {
+                out[nb++] = buffer[k];
+            }
+        }
+        return nb;
+    }
+
+    /**
+     * Return the number of bombs around a number not flagged yet
+     *
+     * @param c index of the number
+     * @param around the neighbours of c, as filled by hidden
+     * @return
+     */
+    private int bombsLeft(int c, int[] around) {
+        int n = board.neighbours(c, around);
+        int left = board.cells.getNbBomb(c);
+        for (int k = 0; k < n; k++) {
+            if (board.cells.is(around[k], CellStore.FLAG)) {
+                left--;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Play the cases certain, bombs first then the safe ones
+     *
+     * @return the number of moves played, 0 if the solver is stuck
+     */
+    public int step() {
+        if (board.gameFinished() || !deduce()) {
+            return 0;
+        }
+        int moves = 0;
+        for (int i = 0; i < mines.size() && !board.gameFinished(); i++) {
+            int m = mines.get(i);
+            if (isUnknown(m)) {
+                board.rightClick(board.rowOf(m), board.colOf(m));
+                moves++;
+            }
+        }
+        for (int i = 0; i < safe.size() && !board.gameFinished(); i++) {
+            int s = safe.get(i);
+            if (isUnknown(s)) {
+                board.leftClick(board.rowOf(s), board.colOf(s));
+                moves++;
+            }
+        }
+        nbMove += moves;
+        return moves;
+    }
+
+    /**
+     * Play until the game is finished or no case is certain anymore
+     *
+     * @return the state of the game
+     */
+    public GameState solve() {
+        while (step() > 0) {
+            // the moves queued the numbers around the cases they changed
+        }
+        return board.getState();
+    }
+}
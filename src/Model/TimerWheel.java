@@ -0,0 +1,228 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed timer wheel : a single thread running the delayed tasks of all the
+ * games
+ *
+ * The time is cut in ticks, each task is linked in the slot of the tick it
+ * expires at, so scheduling and cancelling a task are O(1) whatever the number
+ * of tasks. The tasks run on the thread of the wheel and must be short. A
+ * task never runs before its delay, at most a tick after it.
+ *
+ * The thread only ticks while tasks are waiting : with none, e.g. when no
+ * game is running, it waits for the next one without waking up.
+ */
+public class TimerWheel {
+
+    private static final TimerWheel DEFAULT = new TimerWheel(10, 512);
+
+    private final long tickNanos;
+    private final Timeout[] slots;
+    private final int mask;
+    private final Object lock = new Object();
+    private final List<Timeout> expired = new ArrayList<>();
+    private long currentTick;
+    private int nbPending;
+    private Thread thread;
+    private volatile Thread.UncaughtExceptionHandler errorHandler;
+
+    /**
+     * A task waiting in the wheel
+     */
+    public final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private Timeout prev;
+        private Timeout next;
+        private boolean pending = true;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Remove the task from the wheel
+         *
+         * @return true if the task had not run yet
+         */
+        public boolean cancel() {
+            synchronized (lock) {
+                if (!pending) {
+                    return false;
+                }
+                unlink(this);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Constructor, the thread of the wheel starts with the first task
+     *
+     * @param tickMillis length of a tick, the precision of the wheel
+     * @param nbSlot number of slots, rounded up to a power of 2
+     */
+    public TimerWheel(long tickMillis, int nbSlot) {
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int size = Integer.highestOneBit(Math.max(1, nbSlot - 1)) << 1;
+        this.slots = new Timeout[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Return the wheel shared by all the game timers
+     *
+     * @return
+     */
+    public static TimerWheel getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Run a task after a delay
+     *
+     * @param task
+     * @param delayMillis
+     * @return the handle to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        long ticks = (TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis)) + tickNanos - 1) / tickNanos;
+        synchronized (lock) {
+            if (thread == null) {
+                thread = new Thread(this::loop, "timer-wheel");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            Timeout t = new Timeout(task, currentTick + ticks);
+            int slot = (int) (t.deadline & mask);
+            t.next = slots[slot];
+            if (t.next != null) {
+                t.next.prev = t;
+            }
+            slots[slot] = t;
+            if (nbPending++ == 0) {
+                lock.notifyAll(); // wake the thread waiting for a task
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Choose who receives the exceptions thrown by the tasks
+     *
+     * @param errorHandler null for the default handler of the threads, or
+     * else the one of the thread group, which prints the stack trace
+     */
+    public void setErrorHandler(Thread.UncaughtExceptionHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    /**
+     * Hand an exception thrown by a task to the error handler, the thread
+     * going on with the next one
+     *
+     * @param ex
+     */
+    private void report(RuntimeException ex) {
+        Thread t = Thread.currentThread();
+        Thread.UncaughtExceptionHandler h = errorHandler;
+        if (h == null) {
+            h = Thread.getDefaultUncaughtExceptionHandler();
+        }
+        if (h == null) {
+            h = t.getThreadGroup();
+        }
+        h.uncaughtException(t, ex);
+    }
+
+    /**
+     * Return the number of tasks waiting in the wheel
+     *
+     * @return
+     */
+    public int getNbPending() {
+        synchronized (lock) {
+            return nbPending;
+        }
+    }
+
+    private void unlink(Timeout t) {
+        if (t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            slots[(int) (t.deadline & mask)] = t.next;
+        }
+        if (t.next != null) {
+            t.next.prev = t.prev;
+        }
+        t.prev = null;
+        t.next = null;
+        t.pending = false;
+        nbPending--;
+    }
+
+    /**
+     * Wait for each tick and run the tasks expired, out of the lock so that
+     * they can schedule new tasks. Without task the thread waits for the next
+     * one, the ticks starting again from its arrival
+     */
+    private void loop() {
+        long start = System.nanoTime();
+        long tick = 0;
+        while (true) {
+            synchronized (lock) {
+                if (nbPending == 0) {
+                    try {
+                        while (nbPending == 0) {
+                            lock.wait();
+                        }
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    start = System.nanoTime();
+                    tick = 0;
+                }
+            }
+            long sleep = start + (tick + 1) * tickNanos - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+            synchronized (lock) {
+                Timeout t = slots[(int) (currentTick & mask)];
+                while (t != null) {
+                    Timeout next = t.next;
+                    if (t.deadline <= currentTick) {
+                        unlink(t);
+                        expired.add(t);
+                    }
+                    t = next;
+                }
+                currentTick++;
+            }
+            for (Timeout t : expired) {
+                try {
+                    t.task.run();
+                } catch (RuntimeException ex) {
+                    report(ex);
+                }
+            }
+            expired.clear();
+            tick++;
+        }
+    }
+}
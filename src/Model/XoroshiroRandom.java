@@ -0,0 +1,70 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * xoroshiro128++ generator (Blackman and Vigna), not synchronized
+ *
+ * The 128 bits of state are filled from the seed by SplitMix64. Bounded
+ * numbers use a multiplication instead of a division (Lemire), rejecting the
+ * few values that would bias the draw.
+ */
+public class XoroshiroRandom implements BombRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long s0;
+    private long s1;
+
+    /**
+     * Constructor
+     *
+     * @param seed
+     */
+    public XoroshiroRandom(long seed) {
+        this.s0 = mix(seed + GOLDEN_GAMMA);
+        this.s1 = mix(seed + 2 * GOLDEN_GAMMA);
+    }
+
+    /**
+     * SplitMix64 finalizer : a different long for each input, with all bits
+     * depending on all the bits of the input
+     *
+     * @param z
+     * @return
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public long nextLong() {
+        long a = s0;
+        long b = s1;
+        long result = Long.rotateLeft(a + b, 17) + a;
+        b ^= a;
+        s0 = Long.rotateLeft(a, 49) ^ b ^ (b << 21);
+        s1 = Long.rotateLeft(b, 28);
+        return result;
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive : " + bound);
+        }
+        long m = (nextLong() >>> 32) * bound;
+        if ((m & 0xFFFFFFFFL) < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while ((m & 0xFFFFFFFFL) < threshold) {
+                m = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+}
@@ -0,0 +1,294 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Server;
+
+import Model.GameEngine;
+import Model.MoveJournal;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local server hosting many games at once
+ *
+ * Line based protocol over TCP on localhost, one reply line per request line :
+ * <pre>
+ * NEW SQUARE row col bomb seed   -> OK id
+ * NEW PYRAMID base bomb seed     -> OK id
+ * REVEAL id row col              -> OK state n index... | OK state ALL
+ * FLAG id row col                -> OK state n index... | OK state ALL
+ * CHORD id row col               -> OK state n index... | OK state ALL
+ * RESET id seed                  -> OK state ALL
+ * CLOSE id                       -> OK
+ * </pre>
+ * An invalid request is answered by "ERR message". A board holds at most
+ * {@link #MAX_CASES} cases (base * base for a pyramid). The indexes are the
+ * flat indexes of the cases changed by the move.
+ *
+ * The moves run on a work-stealing pool, serialized per session. Each
+ * connection is read by its own thread, the clients are expected to open a
+ * few connections and play many sessions on each of them.
+ *
+ * Given a directory, the server records the moves of each session in a
+ * {@link MoveJournal} named session-id.mswj, closed by CLOSE. The sessions
+ * still open when their connection ends are closed with it.
+ */
+public class GameServer {
+
+    /**
+     * Default port of the server
+     */
+    public static final int DEFAULT_PORT = 4444;
+    /**
+     * Largest board of a session
+     */
+    public static final int MAX_CASES = 1 << 22;
+
+    private final ServerSocket socket;
+    private final ForkJoinPool pool;
+    private final ExecutorService connections;
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final Path journals;
+    private volatile boolean running = true;
+
+    /**
+     * Open the server on localhost
+     *
+     * @param port port to listen to, 0 to pick a free one
+     * @throws IOException
+     */
+    public GameServer(int port) throws IOException {
+        this(port, null);
+    }
+
+    /**
+     * Open the server on localhost
+     *
+     * @param port port to listen to, 0 to pick a free one
+     * @param journals directory of the journals of the sessions, null to
+     * record no move
+     * @throws IOException
+     */
+    public GameServer(int port, Path journals) throws IOException {
+        this.journals = journals;
+        this.socket = new ServerSocket(port, 512, InetAddress.getLoopbackAddress());
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+        this.connections = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "game-server-connection");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port, args.length > 1 ? Paths.get(args[1]) : null);
+        System.out.println("Game server listening on port " + server.getPort());
+        server.run();
+    }
+
+    public int getPort() {
+        return socket.getLocalPort();
+    }
+
+    public int getNbSession() {
+        return sessions.size();
+    }
+
+    /**
+     * Start accepting the connections on a daemon thread
+     */
+    public void start() {
+        Thread t = new Thread(this::run, "game-server");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Accept the connections until the server is stopped
+     */
+    public void run() {
+        while (running) {
+            try {
+                Socket client = socket.accept();
+                client.setTcpNoDelay(true);
+                connections.execute(() -> serve(client));
+            } catch (IOException ex) {
+                if (running) {
+                    System.err.println("Game server : " + ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the server, closing the sessions left after the moves queued
+     */
+    public void stop() {
+        running = false;
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // already closed
+        }
+        for (Integer id : sessions.keySet()) {
+            close(id);
+        }
+        connections.shutdownNow();
+        pool.shutdown();
+    }
+
+    /**
+     * Answer the requests of a connection until it is closed
+     *
+     * @param client
+     */
+    private void serve(Socket client) {
+        Set<Integer> owned = new HashSet<>();
+        try (Socket s = client;
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                out.println(handle(line, owned));
+                out.flush();
+            }
+        } catch (IOException ex) {
+            // the client left
+        } finally {
+            for (int id : owned) {
+                close(id);
+            }
+        }
+    }
+
+    /**
+     * Answer a request of a connection
+     *
+     * @param line
+     * @param owned the sessions created by the connection and not closed yet,
+     * updated by NEW and CLOSE
+     * @return the reply line
+     */
+    private String handle(String line, Set<Integer> owned) {
+        String[] args = line.trim().split(" +");
+        try {
+            switch (args[0]) {
+                case "NEW":
+                    int created = create(args);
+                    owned.add(created);
+                    return "OK " + created;
+                case "REVEAL":
+                    return "OK " + session(args[1]).play(GameEngine.Move.REVEAL,
+                            Integer.parseInt(args[2]), Integer.parseInt(args[3])).get();
+                case "FLAG":
+                    return "OK " + session(args[1]).play(GameEngine.Move.FLAG,
+                            Integer.parseInt(args[2]), Integer.parseInt(args[3])).get();
+                case "CHORD":
+                    return "OK " + session(args[1]).play(GameEngine.Move.CHORD,
+                            Integer.parseInt(args[2]), Integer.parseInt(args[3])).get();
+                case "RESET":
+                    return "OK " + session(args[1]).reset(Long.parseLong(args[2])).get();
+                case "CLOSE":
+                    int id = Integer.parseInt(args[1]);
+                    session(args[1]).close().get();
+                    sessions.remove(id);
+                    owned.remove(id);
+                    return "OK";
+                default:
+                    return "ERR unknown request " + args[0];
+            }
+        } catch (ExecutionException ex) {
+            return error(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return "ERR interrupted";
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            return "ERR missing argument in " + line;
+        } catch (IOException | RuntimeException ex) {
+            // a bad number, shape or session, or a failure of the request
+            return error(ex);
+        }
+    }
+
+    private static String error(Throwable ex) {
+        String message = ex.getMessage();
+        return "ERR " + (message == null ? ex.getClass().getSimpleName() : message);
+    }
+
+    /**
+     * Create a session
+     *
+     * @param args the words of the NEW request
+     * @return the id of the session
+     */
+    private int create(String[] args) throws IOException {
+        GameEngine.Shape shape = GameEngine.Shape.valueOf(args[1]);
+        boolean pyramid = shape == GameEngine.Shape.PYRAMID;
+        int row = Integer.parseInt(args[2]);
+        int col = pyramid ? row : Integer.parseInt(args[3]);
+        int bomb = Integer.parseInt(args[pyramid ? 3 : 4]);
+        long seed = Long.parseLong(args[pyramid ? 4 : 5]);
+        // checked before allocating anything from them
+        long cases = (long) row * col;
+        if (row <= 0 || col <= 0 || cases > MAX_CASES) {
+            throw new IllegalArgumentException("size out of 1.." + MAX_CASES + " cases");
+        }
+        if (bomb < 0 || bomb > cases) {
+            throw new IllegalArgumentException("bombs out of 0.." + cases);
+        }
+        GameEngine engine = GameEngine.create(shape, row, pyramid ? 0 : col, bomb, seed);
+        int id = nextId.incrementAndGet();
+        MoveJournal journal = journals == null ? null
+                : new MoveJournal(journals.resolve("session-" + id + ".mswj"));
+        sessions.put(id, new Session(id, engine, pool, journal));
+        return id;
+    }
+
+    /**
+     * Remove a session and close it, unless it is already closed
+     *
+     * @param id
+     */
+    private void close(int id) {
+        Session session = sessions.remove(id);
+        if (session != null) {
+            try {
+                session.close();
+            } catch (RejectedExecutionException ex) {
+                // the server is stopped
+            }
+        }
+    }
+
+    private Session session(String id) {
+        Session s = sessions.get(Integer.parseInt(id));
+        if (s == null) {
+            throw new IllegalArgumentException("no session " + id);
+        }
+        return s;
+    }
+}
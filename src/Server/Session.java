@@ -0,0 +1,138 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Server;
+
+import Model.GameEngine;
+import Model.GameState;
+import Model.IntList;
+import Model.MoveJournal;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A game hosted by the server
+ *
+ * All the moves of a session go through its serial executor : they run in the
+ * order they arrive, one at a time, on the threads of the server pool.
+ */
+public class Session {
+
+    private final int id;
+    private final GameEngine engine;
+    private final SerialExecutor executor;
+    private final MoveJournal journal;
+    private final IntList changes = new IntList();
+    private boolean allChanged;
+
+    public Session(int id, GameEngine engine, Executor pool) {
+        this(id, engine, pool, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param id
+     * @param engine
+     * @param pool
+     * @param journal journal recording the moves of the session, null for
+     * none
+     */
+    public Session(int id, GameEngine engine, Executor pool, MoveJournal journal) {
+        this.id = id;
+        this.engine = engine;
+        this.executor = new SerialExecutor(pool);
+        this.journal = journal;
+        this.engine.addListener((e, cases) -> collect(cases));
+        if (journal != null) {
+            engine.getBoard().setJournal(journal);
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Play a move
+     *
+     * @param move
+     * @param row
+     * @param col
+     * @return the reply to send : the state of the game and the cases changed
+     */
+    public CompletableFuture<String> play(GameEngine.Move move, int row, int col) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (row < 0 || row >= engine.getNbRow() || col < 0 || col >= engine.getNbCol(row)) {
+                throw new IllegalArgumentException("no case " + row + " " + col);
+            }
+            GameState state = engine.play(move, row, col);
+            return reply(state);
+        }, executor);
+    }
+
+    /**
+     * Start a new game in the session
+     *
+     * @param seed Seed of the bomb placement
+     * @return
+     */
+    public CompletableFuture<String> reset(long seed) {
+        return CompletableFuture.supplyAsync(() -> {
+            engine.reset(seed);
+            return reply(engine.getState());
+        }, executor);
+    }
+
+    /**
+     * End the session, after the moves already queued
+     *
+     * @return
+     */
+    public CompletableFuture<Void> close() {
+        return CompletableFuture.runAsync(() -> {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        }, executor);
+    }
+
+    private void collect(int[] cases) {
+        if (cases == null) {
+            allChanged = true;
+        } else if (!allChanged) {
+            for (int c : cases) {
+                changes.add(c);
+            }
+        }
+    }
+
+    /**
+     * Write the reply of a move and forget the changes sent
+     *
+     * @param state
+     * @return "state ALL" or "state n index..."
+     */
+    private String reply(GameState state) {
+        StringBuilder sb = new StringBuilder(state.name());
+        if (allChanged) {
+            sb.append(" ALL");
+        } else {
+            sb.append(' ').append(changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                sb.append(' ').append(changes.get(i));
+            }
+        }
+        changes.clear();
+        allChanged = false;
+        return sb.toString();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package ViewController;
+
+import Model.Board;
+import Model.BoardPyramid;
+
+/**
+ * Position of the cases of a board on screen, for the squares of a Board2D
+ * and the triangles of a BoardPyramid (laid out as in PaneBuilder)
+ */
+public class BoardGeometry {
+
+    private final Board model;
+    private final boolean pyramid;
+    /**
+     * Size of a case in pixels
+     */
+    private final double size;
+
+    public BoardGeometry(Board model, double size) {
+        this.model = model;
+        this.pyramid = model instanceof BoardPyramid;
+        this.size = size;
+    }
+
+    public double getSize() {
+        return size;
+    }
+
+    public boolean isPyramid() {
+        return pyramid;
+    }
+
+    /**
+     * Width of the board in pixels
+     *
+     * @return
+     */
+    public double width() {
+        if (pyramid) {
+            return model.getNbRow() * size; // The base holds nbRow triangles pointing down
+        }
+        return model.getNbCol(0) * size;
+    }
+
+    /**
+     * Height of the board in pixels
+     *
+     * @return
+     */
+    public double height() {
+        return model.getNbRow() * size;
+    }
+
+    /**
+     * Left side of the box holding a case
+     *
+     * @param i
+     * @param j
+     * @return
+     */
+    public double left(int i, int j) {
+        if (pyramid) {
+            return (i + j) * size / 2;
+        }
+        return j * size;
+    }
+
+    /**
+     * Top side of the box holding a case
+     *
+     * @param i
+     * @return
+     */
+    public double top(int i) {
+        return i * size;
+    }
+
+    /**
+     * Compute the vertices of a triangle, the even columns pointing down and
+     * the odd ones pointing up
+     *
+     * @param i
+     * @param j
+     * @param xs receives the 3 abscissas
+     * @param ys receives the 3 ordinates
+     */
+    public void triangle(int i, int j, double[] xs, double[] ys) {
+        double x = left(i, j);
+        double top = top(i);
+        double bottom = top + size;
+        boolean down = j % 2 == 0;
+        xs[0] = x;
+        ys[0] = down ? top : bottom;
+        xs[1] = x + size / 2;
+        ys[1] = down ? bottom : top;
+        xs[2] = x + size;
+        ys[2] = ys[0];
+    }
+
+    /**
+     * Return the row under an ordinate, clamped to the board
+     *
+     * @param y
+     * @return
+     */
+    public int rowAt(double y) {
+        return clamp((int) Math.floor(y / size), model.getNbRow() - 1);
+    }
+
+    /**
+     * Return the first column of a row whose box may contain the abscissa,
+     * clamped to the row
+     *
+     * @param i
+     * @param x
+     * @return
+     */
+    public int firstColAt(int i, double x) {
+        return clamp(strip(i, x) - (pyramid ? 1 : 0), model.getNbCol(i) - 1);
+    }
+
+    /**
+     * Return the last column of a row whose box may contain the abscissa,
+     * clamped to the row
+     *
+     * @param i
+     * @param x
+     * @return
+     */
+    public int lastColAt(int i, double x) {
+        return clamp(strip(i, x), model.getNbCol(i) - 1);
+    }
+
+    /**
+     * Return the index of the case under a point, -1 if none
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public int caseAt(double x, double y) {
+        int i = (int) Math.floor(y / size);
+        if (y < 0 || i >= model.getNbRow()) {
+            return -1;
+        }
+        if (!pyramid) {
+            int j = (int) Math.floor(x / size);
+            return (x < 0 || j >= model.getNbCol(i)) ? -1 : model.indexOf(i, j);
+        }
+        // Each half case wide strip is shared by two triangles
+        int strip = strip(i, x);
+        double[] xs = new double[3];
+        double[] ys = new double[3];
+        for (int j = strip; j >= strip - 1; j--) {
+            if (j >= 0 && j < model.getNbCol(i)) {
+                triangle(i, j, xs, ys);
+                if (inTriangle(x, y, xs, ys)) {
+                    return model.indexOf(i, j);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Index of the column whose box starts just before the abscissa
+     *
+     * @param i
+     * @param x
+     * @return
+     */
+    private int strip(int i, double x) {
+        if (pyramid) {
+            return (int) Math.floor((x - i * size / 2) / (size / 2));
+        }
+        return (int) Math.floor(x / size);
+    }
+
+    private static int clamp(int value, int max) {
+        return Math.max(0, Math.min(value, max));
+    }
+
+    /**
+     * Test if a point lies in a triangle
+     *
+     * @param x
+     * @param y
+     * @param xs
+     * @param ys
+     * @return
+     */
+    private static boolean inTriangle(double x, double y, double[] xs, double[] ys) {
+        double d1 = side(x, y, xs, ys, 0, 1);
+        double d2 = side(x, y, xs, ys, 1, 2);
+        double d3 = side(x, y, xs, ys, 2, 0);
+        boolean negative = d1 < 0 || d2 < 0 || d3 < 0;
+        boolean positive = d1 > 0 || d2 > 0 || d3 > 0;
+        return !(negative && positive);
+    }
+
+    private static double side(double x, double y, double[] xs, double[] ys, int a, int b) {
+        return (x - xs[b]) * (ys[a] - ys[b]) - (xs[a] - xs[b]) * (y - ys[b]);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package ViewController;
+
+import Model.Board;
+import java.util.concurrent.Executor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+
+/**
+ * Draw the whole board on a single canvas instead of one node per case
+ *
+ * The tiles are copied from a sprite sheet, only the cases changed are
+ * redrawn, and a single handler maps the clicks back to the cases. Used for
+ * the boards too large for the GridPane.
+ */
+public class CanvasRenderer extends ImageRefresher {
+
+    /**
+     * Largest side of the canvas in pixels
+     */
+    public static final double MAX_CANVAS_SIZE = 4096;
+
+    /**
+     * Smallest size of a case in pixels
+     */
+    public static final double MIN_CASE_SIZE = 4;
+
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final Image sprites;
+    private final int tile;
+    private final BoardGeometry geometry;
+    private final Executor executor;
+    /**
+     * Vertices of the triangle being drawn
+     */
+    private final double[] xs = new double[3];
+    private final double[] ys = new double[3];
+
+    /**
+     * Constructor
+     *
+     * @param model
+     * @param smiley
+     * @param cache
+     * @param size size of the cases in pixels
+     * @param executor Loop processing the clicks
+     */
+    public CanvasRenderer(Board model, Button smiley, ImageCache cache, double size, Executor executor) {
+        super(null, model, smiley, cache, size);
+        this.executor = executor;
+        this.geometry = new BoardGeometry(model, size);
+        this.sprites = cache.getSpriteSheet(size);
+        this.tile = ImageCache.tileSize(size);
+        this.canvas = new Canvas(geometry.width(), geometry.height());
+        this.gc = canvas.getGraphicsContext2D();
+        this.canvas.setOnMouseClicked(this::click);
+        this.drawAll();
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Compute the size of the cases so that the canvas stays under
+     * MAX_CANVAS_SIZE
+     *
+     * @param model
+     * @param size the preferred size of the cases
+     * @return
+     */
+    public static double caseSize(Board model, double size) {
+        BoardGeometry unit = new BoardGeometry(model, 1);
+        double largest = Math.max(unit.width(), unit.height());
+        return Math.max(MIN_CASE_SIZE, Math.min(size, Math.floor(MAX_CANVAS_SIZE / largest)));
+    }
+
+    /**
+     * Draw every case
+     */
+    private void drawAll() {
+        for (int i = 0; i < model.getNbRow(); i++) {
+            for (int j = 0; j < model.getNbCol(i); j++) {
+                this.refreshCase(i, j);
+            }
+        }
+    }
+
+    /**
+     * Draw the tile of a case on the canvas
+     *
+     * @param i
+     * @param j
+     */
+    @Override
+    protected void refreshCase(int i, int j) {
+        double sx = ImageCache.tileIndex(imageOf(i, j)) * tile;
+        double x = geometry.left(i, j);
+        double y = geometry.top(i);
+        if (geometry.isPyramid()) {
+            geometry.triangle(i, j, xs, ys);
+            gc.save();
+            gc.beginPath();
+            gc.moveTo(xs[0], ys[0]);
+            gc.lineTo(xs[1], ys[1]);
+            gc.lineTo(xs[2], ys[2]);
+            gc.closePath();
+            gc.clip();
+            gc.drawImage(sprites, sx, 0, tile, tile, x, y, size, size);
+            gc.restore();
+        } else {
+            gc.drawImage(sprites, sx, 0, tile, tile, x, y, size, size);
+        }
+    }
+
+    /**
+     * Forward a click to the case under the mouse
+     *
+     * @param event
+     */
+    private void click(MouseEvent event) {
+        int index = geometry.caseAt(event.getX(), event.getY());
+        if (index >= 0) {
+            new CustomEventHandler(model, model.rowOf(index), model.colOf(index), executor).handle(event);
+        }
+    }
+}
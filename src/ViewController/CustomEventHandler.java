@@ -6,7 +6,7 @@
 package ViewController;
 
 import Model.Board;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.scene.input.MouseButton;
@@ -22,9 +22,9 @@ public class CustomEventHandler implements EventHandler {
     private final Board model;
     private final int i;
     private final int j;
-    private final ExecutorService executor;
+    private final Executor executor;
 
-    public CustomEventHandler(Board model, int i, int j, ExecutorService executor) {
+    public CustomEventHandler(Board model, int i, int j, Executor executor) {
         this.model = model;
         this.i = i;
         this.j = j;
@@ -33,10 +33,16 @@ public class CustomEventHandler implements EventHandler {
 
     public void handle(MouseEvent event) {
         if (model.gameFinished()) {
-            System.out.println("Game Finished ! ");
             return;
         }
-        if (event.getButton() == MouseButton.SECONDARY) {
+        if (event.getButton() == MouseButton.MIDDLE
+                || event.getButton() == MouseButton.PRIMARY && event.isSecondaryButtonDown()
+                || event.getButton() == MouseButton.SECONDARY && event.isPrimaryButtonDown()) {
+            // chord : middle button or both buttons
+            executor.execute(() -> {
+                model.chord(i, j);
+            });
+        } else if (event.getButton() == MouseButton.SECONDARY) {
             executor.execute(() -> {
                 model.rightClick(i, j);
             });
@@ -7,14 +7,18 @@ package ViewController;
 
 import Model.Board;
 import Model.Board2D;
+import Model.BoardFile;
 import Model.BoardPyramid;
+import Model.GameLoop;
 import Model.GameTimer;
+import Model.NoGuessGenerator;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -25,13 +29,18 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.CustomMenuItem;
 import javafx.scene.control.Label;
 import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
 import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.RadioMenuItemBuilder;
+import javafx.scene.control.SeparatorMenuItem;
 import javafx.scene.control.Slider;
 import javafx.scene.control.Toggle;
 import javafx.scene.control.ToggleGroup;
@@ -47,6 +56,7 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 /**
@@ -63,27 +73,44 @@ public class GUI extends Application implements Observer {
     }
     private Button smiley;
     private static final double SQUARESIZE = 20;
+    /**
+     * Draw the boards larger than the window on a canvas rather than in a
+     * scrollable viewport
+     */
+    private boolean useCanvas = false;
+    /**
+     * Generator of the boards needing no guess, used by the first click when
+     * the mode is on
+     */
+    private final NoGuessGenerator noGuessGenerator = new NoGuessGenerator();
+    private boolean noGuess = false;
+    static final double SMILEYSIZE = 25;
     private static ImageRefresher imageRefresher;
+    /**
+     * Merge the notifications of the model into one refresh per frame
+     */
+    private static RenderScheduler renderScheduler;
+
+    public static RenderScheduler getRenderScheduler() {
+        return renderScheduler;
+    }
+    /**
+     * Images shared by every case
+     */
+    private static final ImageCache imageCache = new ImageCache();
+
+    public static ImageCache getImageCache() {
+        return imageCache;
+    }
     private Stage primaryStage;
     private Pane p; //Pane to draw the playing grid
     private BorderPane borderPane; //The main borderPane
     private Label timerLabel; //The label for the timer
     /**
-     * Max number of threads for the ExecutorService Used to process the model
+     * Loop applying every change of the model on a single thread, one loop
+     * per board
      */
-    private final int NB_THREAD_MAX = 5;
-
-    /**
-     * Executor : Provides @NB_THREAD_MAX threads Stores in queue the tasks if
-     * more than @NB_THREAD_MAX threads are needed
-     */
-    private final ExecutorService executor
-            = Executors.newFixedThreadPool(NB_THREAD_MAX, (Runnable r)
-                    -> {
-                Thread thread = new Thread(r);
-                thread.setDaemon(true);
-                return thread;
-            });
+    private GameLoop gameLoop;
 
     /**
      * @param args the command line arguments
@@ -95,6 +122,8 @@ public class GUI extends Application implements Observer {
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
+        imageCache.preload(SQUARESIZE, ImageCache.TILES);
+        imageCache.preload(SMILEYSIZE, ImageCache.SMILEYS);
         Scene scene = initGame(16, 16);
         this.primaryStage.sizeToScene();
         this.primaryStage.setTitle("Minesweeper");
@@ -117,28 +146,10 @@ public class GUI extends Application implements Observer {
 
         HBox bottombar = this.buildBottomBar();
 
-        model = new Board2D(row, col, 34);
-        modelTimer = model.getTimer();
-        TimerObserver to = new TimerObserver(timerLabel, model);
-        modelTimer.addObserver(to);
+        setModel(new Board2D(row, col, 34));
         modelTimer.start();
 
-        model.addObserver(this);
-
-        caseNodes = new ArrayList<>();
-        for (int i = 0; i < model.getBoard().size(); i++) {
-            caseNodes.add(new ArrayList<>());
-        }
-
-        imageRefresher = new ImageRefresher(caseNodes, model, smiley);
-
-        if (model instanceof BoardPyramid) {
-            p = PaneBuilder.createBorderPane(model, executor, SQUARESIZE);
-            p.setMinSize(model.getBoard().size() * SQUARESIZE, model.getBoard().size() * SQUARESIZE);
-        } else {
-            p = PaneBuilder.createGridPane(model, executor);
-
-        }
+        buildPlayingPane();
 
         borderPane.setTop(b);
         borderPane.setCenter(p);
@@ -158,9 +169,9 @@ public class GUI extends Application implements Observer {
         hbox.setSpacing(2);
         hbox.setStyle("-fx-background-color: #336699;");
 
-        Image image = new Image(getClass().getResource("/images/Sleep.png").toExternalForm());
+        Image image = imageCache.getImage("/images/Sleep.png", SMILEYSIZE);
         smiley = this.createSmileyButton(image);
-        StackPane stack = PaneBuilder.createStackPane(smiley, image, model, executor);
+        StackPane stack = PaneBuilder.createStackPane(smiley, image, model, this::post);
 
         hbox.getChildren().add(stack);            // Add to HBox from Example 1-2
         HBox.setHgrow(stack, Priority.ALWAYS);    // Give stack any extra space
@@ -192,7 +203,7 @@ public class GUI extends Application implements Observer {
     }
 
     public static ImageView createImageView() {
-        Image image = imageRefresher.buildImage("/images/Square.png");
+        Image image = imageCache.getImage("/images/Square.png", SQUARESIZE);
         ImageView imageView = new ImageView(image);
         imageView.setFitWidth(SQUARESIZE);
         imageView.setFitHeight(SQUARESIZE);
@@ -209,18 +220,21 @@ public class GUI extends Application implements Observer {
     private Button createSmileyButton(Image image) {
         Button button = new Button();
         ImageView imageView = new ImageView(image);
-        imageView.setFitWidth(25);
-        imageView.setFitHeight(25);
+        imageView.setFitWidth(SMILEYSIZE);
+        imageView.setFitHeight(SMILEYSIZE);
         button.setGraphic(imageView);
 
         button.setOnMouseClicked((MouseEvent event)
                 -> {
                     if (event.getButton() == MouseButton.PRIMARY) {
-                        executor.execute(()
+                        boolean posted = post(()
                                 -> {
                             model.resetBoard();
                             modelTimer.restart();
                         });
+                        if (!posted) {
+                            busy();
+                        }
                     }
                 });
         return button;
@@ -256,16 +270,19 @@ public class GUI extends Application implements Observer {
                 .toggleGroup(tGroup)
                 .text("Triangle")
                 .build();
+        RadioMenuItem giant = RadioMenuItemBuilder.create()
+                .toggleGroup(tGroup)
+                .text("Géant")
+                .build();
 
         //Variable needed for anonymous method
         final Stage ps = this.primaryStage;
-        final Observer obs = this;
         //Click on square mode
         square.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent e) {
-                model = new Board2D(9, 9, 15);
-                model.addObserver(obs);
+                setModel(new Board2D(9, 9, 15));
+                post(modelTimer::restart);
                 reiinitPane(ps);
             }
         });
@@ -274,16 +291,75 @@ public class GUI extends Application implements Observer {
         triangle.setOnAction(new EventHandler<ActionEvent>() {
             @Override
             public void handle(ActionEvent e) {
-                model = new BoardPyramid(16, 34);
-                model.addObserver(obs);
+                setModel(new BoardPyramid(16, 34));
+                post(modelTimer::restart);
+                reiinitPane(ps);
+            }
+        });
+
+        //Click on giant mode (drawn on a canvas)
+        giant.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent e) {
+                setModel(new Board2D(500, 500, 37500));
+                post(modelTimer::restart);
                 reiinitPane(ps);
             }
         });
 
         menuMode.getItems().add(square);
         menuMode.getItems().add(triangle);
+        menuMode.getItems().add(giant);
+
+        //Boards solvable without guessing from the first click
+        CheckMenuItem noGuessItem = new CheckMenuItem("Sans hasard");
+        noGuessItem.setSelected(noGuess);
+        noGuessItem.setOnAction((ActionEvent e) -> {
+            noGuess = noGuessItem.isSelected();
+            final Board board = model;
+            final NoGuessGenerator generator = noGuess ? noGuessGenerator : null;
+            if (!post(() -> board.setGenerator(generator))) {
+                noGuess = !noGuess;
+                noGuessItem.setSelected(noGuess);
+                busy();
+            }
+        });
+        menuMode.getItems().add(new SeparatorMenuItem());
+        menuMode.getItems().add(noGuessItem);
+
+        //------------------------------- Display of the large boards
+        Menu menuDisplay = new Menu("Affichage");
+        ToggleGroup dGroup = new ToggleGroup();
+        RadioMenuItem nodes = RadioMenuItemBuilder.create()
+                .toggleGroup(dGroup)
+                .text("Cases")
+                .selected(true)
+                .build();
+        RadioMenuItem canvas = RadioMenuItemBuilder.create()
+                .toggleGroup(dGroup)
+                .text("Canvas")
+                .build();
+        nodes.setOnAction((ActionEvent e) -> {
+            useCanvas = false;
+            reiinitPane(ps);
+        });
+        canvas.setOnAction((ActionEvent e) -> {
+            useCanvas = true;
+            reiinitPane(ps);
+        });
+        menuDisplay.getItems().add(nodes);
+        menuDisplay.getItems().add(canvas);
+
+        //------------------------------- Save and load a game
+        Menu menuGame = new Menu("Partie");
+        MenuItem save = new MenuItem("Sauvegarder...");
+        MenuItem load = new MenuItem("Charger...");
+        save.setOnAction((ActionEvent e) -> saveGame());
+        load.setOnAction((ActionEvent e) -> loadGame(ps));
+        menuGame.getItems().add(save);
+        menuGame.getItems().add(load);
 
-        menuBar.getMenus().addAll(menu, menuMode);
+        menuBar.getMenus().addAll(menuGame, menu, menuMode, menuDisplay);
 
         HBox hbox = this.buildTopBar();
         bp.setTop(hbox);
@@ -313,24 +389,33 @@ public class GUI extends Application implements Observer {
 
             @Override
             public void changed(ObservableValue ov, Object t, Object t1) {
-                p.getChildren().remove(0, (model.getNbCase()));
                 int level = (int) slider.getValue();
-                switch (level) {
-                    case 0:
-                        model.changeLevel(9, 9, 3);
-                        break;
-                    case 50:
-                        model.changeLevel(16, 16, 34);
-                        break;
-                    case 100:
-                        if (model instanceof BoardPyramid) {
-                            model.changeLevel(30, 30, 50);
-                        } else {
-                            model.changeLevel(16, 30, 100);
-                        }
-                        break;
+                final Board board = model;
+                // The pane is rebuilt once the game loop has changed the board
+                boolean posted = post(() -> {
+                    switch (level) {
+                        case 0:
+                            board.changeLevel(9, 9, 3);
+                            break;
+                        case 50:
+                            board.changeLevel(16, 16, 34);
+                            break;
+                        case 100:
+                            if (board instanceof BoardPyramid) {
+                                board.changeLevel(30, 30, 50);
+                            } else {
+                                board.changeLevel(16, 30, 100);
+                            }
+                            break;
+                    }
+                    board.getTimer().restart();
+                    Platform.runLater(() -> reiinitPane(ps));
+                });
+                if (posted) {
+                    p.getChildren().clear();
+                } else {
+                    busy();
                 }
-                reiinitPane(ps);
 
             }
 
@@ -339,36 +424,180 @@ public class GUI extends Application implements Observer {
     }
 
     /**
-     * Recreate the playing pane and reset the event listener as well as the
-     * image views
+     * Replace the model, with a new game loop to change it
      *
-     * @param stage
+     * @param board
      */
-    private void reiinitPane(Stage stage) {
+    private void setModel(Board board) {
+        if (gameLoop != null) {
+            gameLoop.stop();
+        }
+        if (model != null) {
+            model.deleteObserver(this);
+        }
+        model = board;
+        model.setGenerator(noGuess ? noGuessGenerator : null);
+        gameLoop = new GameLoop(board);
+        model.addObserver(this);
+        // the label follows the timer of the new board
+        if (modelTimer != null) {
+            modelTimer.stop();
+            modelTimer.deleteObservers();
+        }
+        modelTimer = board.getTimer();
+        modelTimer.addObserver(new TimerObserver(timerLabel, board, this::post));
+    }
+
+    /**
+     * Queue a command on the game loop. When its mailbox is full (e.g. clicks
+     * while a board without guess is generated) the command is dropped, and
+     * counted by the loop, instead of throwing on the FX thread
+     *
+     * @param command
+     * @return false if the command was dropped
+     */
+    private boolean post(Runnable command) {
+        return gameLoop.submit(command);
+    }
+
+    /**
+     * Tell the player that a command of the menus was dropped
+     */
+    private static void busy() {
+        Alert alert = new Alert(AlertType.WARNING);
+        alert.setTitle("Partie occupée");
+        alert.setHeaderText(null);
+        alert.setContentText("La partie est occupée, réessayez dans un instant");
+        alert.show();
+    }
+
+    /**
+     * Build the pane of the playing grid and the refresher matching it : one
+     * node per case for the boards fitting in the window, a viewport or a
+     * single canvas for the larger ones
+     */
+    private void buildPlayingPane() {
+        Executor moves = this::post;
         caseNodes = new ArrayList<>();
-        for (int i = 0; i < model.getBoard().size(); i++) {
+        for (int i = 0; i < model.getNbRow(); i++) {
             caseNodes.add(new ArrayList<>());
         }
 
-        imageRefresher = new ImageRefresher(caseNodes, model, smiley);
-
-        if (model instanceof BoardPyramid) {
-            p = PaneBuilder.createBorderPane(model, executor, SQUARESIZE);
-            p.setMinSize(model.getBoard().size() * SQUARESIZE, model.getBoard().size() * SQUARESIZE);
+        BoardGeometry geometry = new BoardGeometry(model, SQUARESIZE);
+        boolean fits = geometry.width() <= PaneBuilder.MAX_VIEWPORT_WIDTH
+                && geometry.height() <= PaneBuilder.MAX_VIEWPORT_HEIGHT;
+        if (!fits && useCanvas) {
+            double size = CanvasRenderer.caseSize(model, SQUARESIZE);
+            CanvasRenderer renderer = new CanvasRenderer(model, smiley, imageCache, size, moves);
+            imageRefresher = renderer;
+            p = PaneBuilder.createCanvasPane(renderer.getCanvas());
+        } else if (!fits) {
+            VirtualBoardView view = new VirtualBoardView(model, smiley, imageCache, SQUARESIZE, moves,
+                    PaneBuilder.MAX_VIEWPORT_WIDTH, PaneBuilder.MAX_VIEWPORT_HEIGHT);
+            imageRefresher = view;
+            p = view.getViewport();
         } else {
-            p = PaneBuilder.createGridPane(model, executor);
+            imageRefresher = new ImageRefresher(caseNodes, model, smiley, imageCache, SQUARESIZE);
 
+            if (model instanceof BoardPyramid) {
+                p = PaneBuilder.createBorderPane(model, moves, SQUARESIZE);
+                p.setMinSize(model.getNbRow() * SQUARESIZE, model.getNbRow() * SQUARESIZE);
+            } else {
+                p = PaneBuilder.createGridPane(model, moves);
+
+            }
         }
+        renderScheduler = new RenderScheduler(imageRefresher);
+    }
+
+    /**
+     * Recreate the playing pane and reset the event listener as well as the
+     * image views
+     *
+     * @param stage
+     */
+    private void reiinitPane(Stage stage) {
+        buildPlayingPane();
 
         borderPane.setCenter(p);
 
         stage.sizeToScene();
-        this.modelTimer.restart();
     }
 
+    private static FileChooser gameChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Partie de démineur", "*.msw"));
+        return chooser;
+    }
+
+    /**
+     * Save the game in a file chosen by the player. The board is written by
+     * the game loop, between two moves
+     */
+    private void saveGame() {
+        File file = gameChooser("Sauvegarder la partie").showSaveDialog(primaryStage);
+        if (file == null) {
+            return;
+        }
+        final Board board = model;
+        boolean posted = post(() -> {
+            try {
+                BoardFile.save(board, file.toPath());
+            } catch (IOException ex) {
+                Platform.runLater(() -> showError("Impossible de sauvegarder la partie", ex));
+            }
+        });
+        if (!posted) {
+            busy();
+        }
+    }
+
+    /**
+     * Replace the game by one read from a file chosen by the player, its
+     * timer going on from the time saved
+     *
+     * @param stage
+     */
+    private void loadGame(Stage stage) {
+        File file = gameChooser("Charger une partie").showOpenDialog(primaryStage);
+        if (file == null) {
+            return;
+        }
+        Board board;
+        try {
+            board = BoardFile.load(file.toPath());
+        } catch (IOException ex) {
+            showError("Impossible de charger la partie", ex);
+            return;
+        }
+        setModel(board);
+        buildPlayingPane();
+        borderPane.setCenter(p);
+        stage.sizeToScene();
+        if (!board.gameFinished()) {
+            post(modelTimer::resume);
+        }
+    }
+
+    private static void showError(String message, Exception ex) {
+        Alert alert = new Alert(AlertType.ERROR);
+        alert.setTitle("Erreur");
+        alert.setHeaderText(null);
+        alert.setContentText(message + " : " + ex.getMessage());
+        alert.showAndWait();
+    }
+
+    /**
+     * Queue the refresh of the cases changed by the model
+     *
+     * @param o
+     * @param arg the indexes of the cases changed, null if the whole board
+     * changed
+     */
     @Override
     public void update(Observable o, Object arg) {
-        Platform.runLater(imageRefresher);
+        renderScheduler.post((int[]) arg);
     }
 
     /**
@@ -377,6 +606,6 @@ public class GUI extends Application implements Observer {
     @Override
     public void stop() {
         this.modelTimer.stop();
-        executor.shutdown();
+        gameLoop.stop();
     }
 }
@@ -0,0 +1,168 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package ViewController;
+
+import java.util.HashMap;
+import java.util.Map;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.ImagePattern;
+
+/**
+ * Cache of the images of the game : each image is decoded once, already scaled
+ * to the size it is displayed at, and shared by every node
+ */
+public class ImageCache {
+
+    /**
+     * Images of the cases
+     */
+    public static final String[] TILES = {
+        "/images/Square.png", "/images/EmptySquare.png",
+        "/images/Square1.png", "/images/Square2.png", "/images/Square3.png", "/images/Square4.png",
+        "/images/Square5.png", "/images/Square6.png", "/images/Square7.png", "/images/Square8.png",
+        "/images/Flag.png", "/images/Mine.png", "/images/Bomb.png"};
+
+    /**
+     * Images of the smiley button
+     */
+    public static final String[] SMILEYS = {
+        "/images/Sleep.png", "/images/Smile.png", "/images/Cry.png", "/images/Win.png"};
+
+    /**
+     * Position of each tile in the sprite sheet
+     */
+    private static final Map<String, Integer> TILE_INDEX = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TILES.length; i++) {
+            TILE_INDEX.put(TILES[i], i);
+        }
+    }
+
+    private final Map<String, Image> images = new HashMap<>();
+    private final Map<String, ImagePattern> patterns = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * Decode in advance the images given
+     *
+     * @param size size in pixels of the images
+     * @param paths
+     */
+    public void preload(double size, String... paths) {
+        for (String path : paths) {
+            getImage(path, size);
+        }
+    }
+
+    /**
+     * Get an image, decoding it only the first time
+     *
+     * @param path path of the image in the resources
+     * @param size size in pixels the image is scaled to
+     * @return
+     */
+    public Image getImage(String path, double size) {
+        String key = path + '@' + size;
+        Image image = images.get(key);
+        if (image != null) {
+            hits++;
+            return image;
+        }
+        misses++;
+        image = new Image(getClass().getResource(path).toExternalForm(), size, size, false, true);
+        images.put(key, image);
+        return image;
+    }
+
+    /**
+     * Get a pattern filling a shape with an image (used by the polygons)
+     *
+     * @param path path of the image in the resources
+     * @param size size in pixels the image is scaled to
+     * @return
+     */
+    public ImagePattern getPattern(String path, double size) {
+        String key = path + '@' + size;
+        ImagePattern pattern = patterns.get(key);
+        if (pattern == null) {
+            pattern = new ImagePattern(getImage(path, size));
+            patterns.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Get a sprite sheet holding all the TILES side by side, each one being
+     * a square of tileSize(size) pixels
+     *
+     * @param size size in pixels of the tiles
+     * @return
+     */
+    public Image getSpriteSheet(double size) {
+        String key = "sprites@" + size;
+        Image sheet = images.get(key);
+        if (sheet != null) {
+            hits++;
+            return sheet;
+        }
+        int tile = tileSize(size);
+        WritableImage sprites = new WritableImage(tile * TILES.length, tile);
+        PixelWriter writer = sprites.getPixelWriter();
+        for (int t = 0; t < TILES.length; t++) {
+            PixelReader reader = getImage(TILES[t], tile).getPixelReader();
+            for (int y = 0; y < tile; y++) {
+                for (int x = 0; x < tile; x++) {
+                    writer.setArgb(t * tile + x, y, reader.getArgb(x, y));
+                }
+            }
+        }
+        images.put(key, sprites);
+        return sprites;
+    }
+
+    /**
+     * Return the size in pixels of a tile in the sprite sheet
+     *
+     * @param size
+     * @return
+     */
+    public static int tileSize(double size) {
+        return (int) Math.ceil(size);
+    }
+
+    /**
+     * Return the position of a tile in the sprite sheet
+     *
+     * @param path one of the TILES
+     * @return
+     */
+    public static int tileIndex(String path) {
+        return TILE_INDEX.get(path);
+    }
+
+    /**
+     * Return the number of requests served without decoding
+     *
+     * @return
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Return the number of images decoded
+     *
+     * @return
+     */
+    public long getMisses() {
+        return misses;
+    }
+}
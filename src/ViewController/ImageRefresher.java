@@ -14,7 +14,6 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Polygon;
 
 /**
@@ -28,59 +27,109 @@ public class ImageRefresher implements Runnable {
 
     private final Button smiley;
 
-    private final Board model;
+    protected final Board model;
 
-    public ImageRefresher(List<List<Node>> images, Board model, Button smiley) {
+    protected final ImageCache cache;
+
+    /**
+     * Size of the cases in pixels
+     */
+    protected final double size;
+
+    public ImageRefresher(List<List<Node>> images, Board model, Button smiley, ImageCache cache, double size) {
         this.images = images;
         this.model = model;
         this.smiley = smiley;
+        this.cache = cache;
+        this.size = size;
     }
 
+    /**
+     * Refresh every case of the board
+     */
     @Override
     public void run() {
-        Image image;
+        refreshSmiley();
+        for (int i = 0; i < model.getNbRow(); i++) {
+            for (int j = 0; j < model.getNbCol(i); j++) {
+                this.refreshCase(i, j);
+            }
+        }
+    }
+
+    /**
+     * Refresh only the cases given
+     *
+     * @param cases indexes of the cases changed, null to refresh the whole
+     * board
+     */
+    public void refresh(int[] cases) {
+        if (cases == null) {
+            this.run();
+            return;
+        }
+        refreshSmiley();
+        for (int index : cases) {
+            this.refreshCase(model.rowOf(index), model.colOf(index));
+        }
+    }
+
+    /**
+     * Set the smiley according to the state of the game
+     */
+    protected void refreshSmiley() {
         setSmiley(smiley, model.getState());
-        for (int i = 0; i < images.size(); i++) {
-            for (int j = 0; j < images.get(i).size(); j++) {
-                Node caseImage = this.images.get(i).get(j);
-                switch (model.getCase(i, j).getState()) {
-                    case UNDISCOVERED:
-                        image = this.buildImage("/images/Square.png");
-                        // caseImage.setImage(this.buildImage("/images/Square.png"));
-                        break;
-                    case FLAGGED:
-                        image = this.buildImage("/images/Flag.png");
-                        // caseImage.setImage(this.buildImage("/images/Flag.png"));
-                        break;
-                    case DISCOVERED:
-                        int nbBombs = model.getCase(i, j).getNbBomb();
-                        image = this.buildImage("/images/Square" + nbBombs + ".png");
-                        // caseImage.setImage(this.buildImage("/images/Square" + nbBombs + ".png"));
-                        break;
-                    case EMPTY:
-                        image = this.buildImage("/images/EmptySquare.png");
-                        // caseImage.setImage(this.buildImage("/images/EmptySquare.png"));
-                        break;
-                    case TRIGGERED:
-                        image = this.buildImage("/images/Mine.png");
-                        // caseImage.setImage(this.buildImage("/images/Mine.png"));
-                        break;
-                    case TRAPPED:
-                        if (model.gameFinished()) // Display only if the game is finished
-                        {
-                            image = this.buildImage("/images/Bomb.png");
-                        } else {
-                            image = this.buildImage("/images/Square.png");
-                        }
-                        break;
-                    default:
-                        // caseImage.setImage(this.buildImage("/images/Square.png"));
-                        image = this.buildImage("/images/Square.png");
-                        break;
+    }
+
+    /**
+     * Set the image of a case according to its state
+     *
+     * @param i
+     * @param j
+     */
+    protected void refreshCase(int i, int j) {
+        this.putImage(this.images.get(i).get(j), this.imageOf(i, j));
+    }
+
+    /**
+     * Return the path of the image to display for a case
+     *
+     * @param i
+     * @param j
+     * @return
+     */
+    protected String imageOf(int i, int j) {
+        String image;
+        switch (model.getCase(i, j).getState()) {
+            case UNDISCOVERED:
+                image = "/images/Square.png";
+                break;
+            case FLAGGED:
+                image = "/images/Flag.png";
+                break;
+            case DISCOVERED:
+                int nbBombs = model.getCase(i, j).getNbBomb();
+                image = "/images/Square" + nbBombs + ".png";
+                break;
+            case EMPTY:
+                image = "/images/EmptySquare.png";
+                break;
+            case TRIGGERED:
+                image = "/images/Mine.png";
+                break;
+            case TRAPPED:
+                if (model.gameFinished()) // Display only if the game is finished
+                {
+                    image = "/images/Bomb.png";
+                } else {
+                    image = "/images/Square.png";
                 }
-                this.putImage(caseImage, image);
-            }
+                break;
+            default:
+                image = "/images/Square.png";
+                break;
         }
+        return image;
     }
 
     /**
@@ -88,29 +137,18 @@ public class ImageRefresher implements Runnable {
      * imageview
      *
      * @param n
-     * @param i
+     * @param imagePath
      */
-    private void putImage(Node n, Image i) {
+    protected void putImage(Node n, String imagePath) {
         if (n instanceof Polygon) {
             Polygon p = (Polygon) n;
-            p.setFill(new ImagePattern(i));
+            p.setFill(cache.getPattern(imagePath, size));
         } else {
             ImageView iv = (ImageView) n;
-            iv.setImage(i);
+            iv.setImage(cache.getImage(imagePath, size));
         }
     }
 
-    /**
-     * Get an image form its path
-     *
-     * @param imagePath
-     * @return Image, the image desired
-     */
-    public Image buildImage(String imagePath) {
-        Image image = new Image(getClass().getResource(imagePath).toExternalForm());
-        return image;
-    }
-
     /**
      * Set the button given accordingly
      *
@@ -122,25 +160,23 @@ public class ImageRefresher implements Runnable {
         switch (state) {
             case LOST:
                 this.model.getTimer().stop();
-                image = new Image(getClass().getResource("/images/Cry.png").toExternalForm());
+                image = cache.getImage("/images/Cry.png", GUI.SMILEYSIZE);
                 break;
             case WON:
                 this.model.getTimer().stop();
-                image = new Image(getClass().getResource("/images/Win.png").toExternalForm());
+                image = cache.getImage("/images/Win.png", GUI.SMILEYSIZE);
                 Alert alert = new Alert(AlertType.INFORMATION);
                 alert.setTitle("Gagner");
                 alert.setHeaderText(null);
-                alert.setContentText("Vous avez gagné et vostre score est de " + this.model.getScore());
+                alert.setContentText("Vous avez gagné et vostre score est de " + this.model.getScore()
+                        + String.format(" (temps : %.3f s)", this.model.getFinishTime() / 1000.0));
                 alert.showAndWait();
                 break;
             default:
-                image = new Image(getClass().getResource("/images/Smile.png").toExternalForm());
+                image = cache.getImage("/images/Smile.png", GUI.SMILEYSIZE);
                 break;
 
         }
-        ImageView imageView = new ImageView(image);
-        imageView.setFitWidth(25);
-        imageView.setFitHeight(25);
-        b.setGraphic(imageView);
+        ((ImageView) b.getGraphic()).setImage(image);
     }
 }
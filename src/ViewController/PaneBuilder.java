@@ -8,17 +8,18 @@ package ViewController;
 import Model.Board;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Button;
+import javafx.scene.control.ScrollPane;
 import javafx.scene.image.Image;
 import javafx.scene.layout.Border;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.StackPane;
-import javafx.scene.paint.ImagePattern;
 import javafx.scene.shape.Polygon;
 
 /**
@@ -28,14 +29,20 @@ import javafx.scene.shape.Polygon;
  */
 public class PaneBuilder {
 
+    /**
+     * Largest size of the visible part of a scrollable board
+     */
+    static final double MAX_VIEWPORT_WIDTH = 800;
+    static final double MAX_VIEWPORT_HEIGHT = 600;
+
     /**
      * Create gridPane (adapted for Board2D)
      *
      * @param model Model
-     * @param executor Service launching the imageRefresher
+     * @param executor Loop processing the clicks
      * @return
      */
-    public static GridPane createGridPane(Board model, ExecutorService executor) {
+    public static GridPane createGridPane(Board model, Executor executor) {
         return buildGridPane(model, executor);
     }
 
@@ -46,19 +53,19 @@ public class PaneBuilder {
      * @param executor
      * @return
      */
-    private static GridPane buildGridPane(Board model, ExecutorService executor) {
+    private static GridPane buildGridPane(Board model, Executor executor) {
         int column = 0;
         int row = 0;
         GridPane gPane = new GridPane();
 
-        for (int i = 0; i < model.getBoard().size(); i++) {
-            for (int j = 0; j < model.getBoard().get(i).size(); j++) {
+        for (int i = 0; i < model.getNbRow(); i++) {
+            for (int j = 0; j < model.getNbCol(i); j++) {
                 Node n = GUI.createImageView();
                 gPane.add(n, column++, row);
                 GUI.getCaseNodes().get(i).add(n);
 
                 //When reaching end of a row
-                if (column > model.getBoard().get(row).size() - 1) {
+                if (column > model.getNbCol(row) - 1) {
                     column = 0;
                     row++;
                 }
@@ -78,7 +85,7 @@ public class PaneBuilder {
      * @param executor
      * @return 
      */
-    public static StackPane createStackPane(Button smiley, Image image, Board model, ExecutorService executor) {
+    public static StackPane createStackPane(Button smiley, Image image, Board model, Executor executor) {
 
         StackPane stack = new StackPane();
         stack.getChildren().addAll(smiley);
@@ -93,7 +100,7 @@ public class PaneBuilder {
      * @param executor
      * @return
      */
-    public static BorderPane createBorderPane(Board model, ExecutorService executor, Double sizeSideTriangle) {
+    public static BorderPane createBorderPane(Board model, Executor executor, Double sizeSideTriangle) {
         return buildBorderPane(model, executor, sizeSideTriangle);
     }
 
@@ -103,22 +110,38 @@ public class PaneBuilder {
      * @param model
      * @return the border pane built
      */
-    private static BorderPane buildBorderPane(Board model, ExecutorService executor, Double sizeSideTriangle) {
+    private static BorderPane buildBorderPane(Board model, Executor executor, Double sizeSideTriangle) {
         BorderPane borderPane = new BorderPane();
 
-        List<List<Polygon>> pyramid = createPyramid(model.getBoard().size(), sizeSideTriangle);
+        List<List<Polygon>> pyramid = createPyramid(model.getNbRow(), sizeSideTriangle);
         for (int i = 0; i < pyramid.size(); i++) {
             for (int j = 0; j < pyramid.get(i).size(); j++) {
                 Polygon p = pyramid.get(i).get(j);
                 p.setOnMouseClicked(new CustomEventHandler(model, i, j, executor));
                 borderPane.getChildren().add(p);
-                p.setFill(new ImagePattern(GUI.createImageView().getImage())); // Todo maybe change here
+                p.setFill(GUI.getImageCache().getPattern("/images/Square.png", sizeSideTriangle));
                 GUI.getCaseNodes().get(i).add(p);
             }
         }
         return borderPane;
     }
 
+    /**
+     * Create a pane showing a canvas (used with CanvasRenderer), scrollable
+     * when the canvas is larger than the window
+     *
+     * @param canvas
+     * @return
+     */
+    public static BorderPane createCanvasPane(Canvas canvas) {
+        BorderPane borderPane = new BorderPane();
+        ScrollPane scroll = new ScrollPane(canvas);
+        scroll.setPrefViewportWidth(Math.min(canvas.getWidth(), MAX_VIEWPORT_WIDTH));
+        scroll.setPrefViewportHeight(Math.min(canvas.getHeight(), MAX_VIEWPORT_HEIGHT));
+        borderPane.setCenter(scroll);
+        return borderPane;
+    }
+
     private static List<List<Polygon>> createPyramid(int sideSize, Double sizeSideTriangle) {
         Double y, x = y = 0.0;
         Double sideX = sizeSideTriangle;
@@ -0,0 +1,131 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package ViewController;
+
+import Model.IntList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.application.Platform;
+
+/**
+ * Collect the changes notified by the model and refresh the view once for all
+ * of them
+ *
+ * At most one refresh is queued on the FX thread at a time : the changes
+ * notified until it runs are merged into it.
+ */
+public class RenderScheduler {
+
+    private final ImageRefresher refresher;
+    /**
+     * True while a refresh is queued on the FX thread
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final Object lock = new Object();
+    /**
+     * Changes waiting for the next refresh
+     */
+    private List<int[]> pending = new ArrayList<>();
+    private boolean pendingAll = false;
+
+    private final AtomicLong notifications = new AtomicLong();
+    private final AtomicLong frames = new AtomicLong();
+
+    /**
+     * Buffers used on the FX thread to merge the changes
+     */
+    private final BitSet seen = new BitSet();
+    private final IntList merged = new IntList();
+
+    public RenderScheduler(ImageRefresher refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * Record changes of the model and queue a refresh if none is queued
+     *
+     * @param cases indexes of the cases changed, null if the whole board
+     * changed
+     */
+    public void post(int[] cases) {
+        notifications.incrementAndGet();
+        synchronized (lock) {
+            if (cases == null) {
+                pendingAll = true;
+                pending.clear();
+            } else if (!pendingAll) {
+                pending.add(cases);
+            }
+        }
+        if (scheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::render);
+        }
+    }
+
+    /**
+     * Refresh the view with all the changes received so far
+     */
+    private void render() {
+        scheduled.set(false); // Changes posted from now on need a new refresh
+        List<int[]> batch;
+        boolean all;
+        synchronized (lock) {
+            batch = pending;
+            all = pendingAll;
+            pending = new ArrayList<>();
+            pendingAll = false;
+        }
+        if (!all && batch.isEmpty()) {
+            return; // Already rendered by the previous refresh
+        }
+        frames.incrementAndGet();
+        refresher.refresh(all ? null : merge(batch));
+    }
+
+    /**
+     * Merge several lists of changes, removing the duplicates
+     *
+     * @param batch
+     * @return
+     */
+    private int[] merge(List<int[]> batch) {
+        if (batch.size() == 1) {
+            return batch.get(0);
+        }
+        merged.clear();
+        for (int[] cases : batch) {
+            for (int index : cases) {
+                if (!seen.get(index)) {
+                    seen.set(index);
+                    merged.add(index);
+                }
+            }
+        }
+        seen.clear();
+        return merged.toArray();
+    }
+
+    /**
+     * Return the number of notifications received from the model
+     *
+     * @return
+     */
+    public long getNotifications() {
+        return notifications.get();
+    }
+
+    /**
+     * Return the number of refreshes done on the FX thread
+     *
+     * @return
+     */
+    public long getFrames() {
+        return frames.get();
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Observable;
 import java.util.Observer;
 import javafx.scene.control.Label;
 import Model.GameTimer;
+import java.util.concurrent.Executor;
 import javafx.application.Platform;
 
 /**
@@ -22,11 +23,20 @@ public class TimerObserver implements Observer {
     private final GameTimer modelTimer;
     private final Label label;
     private final Board model;
+    private final Executor executor;
 
-    public TimerObserver(Label timerLabel, Board model) {
+    /**
+     * Constructor
+     *
+     * @param timerLabel
+     * @param model
+     * @param executor Loop changing the model
+     */
+    public TimerObserver(Label timerLabel, Board model, Executor executor) {
         this.label = timerLabel;
         this.model = model;
         this.modelTimer = model.getTimer();
+        this.executor = executor;
     }
 
     /**
@@ -39,8 +49,10 @@ public class TimerObserver implements Observer {
     public void update(Observable o, Object arg) {
         Platform.runLater(() -> {
             if (this.modelTimer.isFinished()) {
-                model.resetBoard();
-                modelTimer.restart();
+                executor.execute(() -> {
+                    model.resetBoard();
+                    modelTimer.restart();
+                });
             } else {
                 this.label.setText(this.modelTimer.getValue());
             }
@@ -0,0 +1,259 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package ViewController;
+
+import Model.Board;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.image.ImageView;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Show the part of a large board visible in a viewport
+ *
+ * Only the cases in the viewport get a node, and the nodes are recycled when
+ * the view moves, so the cost depends on the size of the window and not on
+ * the size of the board. The wheel pans the view, Ctrl + wheel zooms around
+ * the mouse.
+ */
+public class VirtualBoardView extends ImageRefresher {
+
+    public static final double MIN_ZOOM = 0.25;
+    public static final double MAX_ZOOM = 4;
+    private static final double ZOOM_STEP = 1.1;
+
+    private final Pane viewport;
+    private final Rectangle clip;
+    private final BoardGeometry geometry;
+    private final Executor executor;
+    /**
+     * Preferred size of the viewport, used until it is laid out
+     */
+    private final double prefWidth;
+    private final double prefHeight;
+
+    /**
+     * Nodes created so far, the first ones being in use
+     */
+    private final List<Node> pool = new ArrayList<>();
+    /**
+     * Node showing each visible case
+     */
+    private final Map<Integer, Node> shown = new HashMap<>();
+    private final double[] xs = new double[3];
+    private final double[] ys = new double[3];
+
+    /**
+     * Position of the top left corner of the viewport on the board, and
+     * scale of the view
+     */
+    private double offsetX;
+    private double offsetY;
+    private double zoom = 1;
+
+    /**
+     * Constructor
+     *
+     * @param model
+     * @param smiley
+     * @param cache
+     * @param size size of the cases in pixels at zoom 1
+     * @param executor Loop processing the clicks
+     * @param width maximum width of the viewport
+     * @param height maximum height of the viewport
+     */
+    public VirtualBoardView(Board model, Button smiley, ImageCache cache, double size, Executor executor,
+            double width, double height) {
+        super(null, model, smiley, cache, size);
+        this.geometry = new BoardGeometry(model, size);
+        this.executor = executor;
+        this.prefWidth = Math.min(width, geometry.width());
+        this.prefHeight = Math.min(height, geometry.height());
+        this.viewport = new Pane();
+        this.viewport.setPrefSize(prefWidth, prefHeight);
+        this.clip = new Rectangle(prefWidth, prefHeight);
+        this.viewport.setClip(clip);
+        this.viewport.widthProperty().addListener((o, before, after) -> layout());
+        this.viewport.heightProperty().addListener((o, before, after) -> layout());
+        this.viewport.setOnMouseClicked(this::click);
+        this.viewport.setOnScroll(this::scroll);
+        this.layout();
+    }
+
+    public Pane getViewport() {
+        return viewport;
+    }
+
+    public double getZoom() {
+        return zoom;
+    }
+
+    /**
+     * Return the number of nodes created, at most the number of cases seen at
+     * once
+     *
+     * @return
+     */
+    public int getNbNodes() {
+        return pool.size();
+    }
+
+    /**
+     * Refresh the smiley and every visible case
+     */
+    @Override
+    public void run() {
+        refreshSmiley();
+        layout();
+    }
+
+    /**
+     * Refresh a case if it is visible
+     *
+     * @param i
+     * @param j
+     */
+    @Override
+    protected void refreshCase(int i, int j) {
+        Node n = shown.get(model.indexOf(i, j));
+        if (n != null) {
+            putImage(n, imageOf(i, j));
+        }
+    }
+
+    /**
+     * Assign a node to every case in the viewport and hide the others
+     */
+    private void layout() {
+        double width = viewWidth();
+        double height = viewHeight();
+        clip.setWidth(width);
+        clip.setHeight(height);
+        shown.clear();
+        int used = 0;
+        if (model.getNbCase() > 0) {
+            double right = offsetX + width / zoom;
+            int last = geometry.rowAt(offsetY + height / zoom);
+            for (int i = geometry.rowAt(offsetY); i <= last; i++) {
+                int lastCol = geometry.lastColAt(i, right);
+                for (int j = geometry.firstColAt(i, offsetX); j <= lastCol; j++) {
+                    Node n = used < pool.size() ? pool.get(used) : newNode();
+                    used++;
+                    place(n, i, j);
+                    putImage(n, imageOf(i, j));
+                    shown.put(model.indexOf(i, j), n);
+                }
+            }
+        }
+        for (int k = used; k < pool.size(); k++) {
+            pool.get(k).setVisible(false);
+        }
+    }
+
+    /**
+     * Create a node and add it to the viewport
+     *
+     * @return
+     */
+    private Node newNode() {
+        Node n;
+        if (geometry.isPyramid()) {
+            n = new Polygon();
+        } else {
+            ImageView iv = new ImageView();
+            iv.setSmooth(true);
+            n = iv;
+        }
+        n.setManaged(false);
+        viewport.getChildren().add(n);
+        pool.add(n);
+        return n;
+    }
+
+    /**
+     * Move a node on a case
+     *
+     * @param n
+     * @param i
+     * @param j
+     */
+    private void place(Node n, int i, int j) {
+        n.setVisible(true);
+        if (n instanceof Polygon) {
+            geometry.triangle(i, j, xs, ys);
+            ((Polygon) n).getPoints().setAll(
+                    screenX(xs[0]), screenY(ys[0]),
+                    screenX(xs[1]), screenY(ys[1]),
+                    screenX(xs[2]), screenY(ys[2]));
+        } else {
+            ImageView iv = (ImageView) n;
+            iv.setFitWidth(size * zoom);
+            iv.setFitHeight(size * zoom);
+            iv.relocate(screenX(geometry.left(i, j)), screenY(geometry.top(i)));
+        }
+    }
+
+    private double screenX(double x) {
+        return (x - offsetX) * zoom;
+    }
+
+    private double screenY(double y) {
+        return (y - offsetY) * zoom;
+    }
+
+    private double viewWidth() {
+        return viewport.getWidth() > 0 ? viewport.getWidth() : prefWidth;
+    }
+
+    private double viewHeight() {
+        return viewport.getHeight() > 0 ? viewport.getHeight() : prefHeight;
+    }
+
+    /**
+     * Forward a click to the case under the mouse
+     *
+     * @param event
+     */
+    private void click(MouseEvent event) {
+        int index = geometry.caseAt(event.getX() / zoom + offsetX, event.getY() / zoom + offsetY);
+        if (index >= 0) {
+            new CustomEventHandler(model, model.rowOf(index), model.colOf(index), executor).handle(event);
+        }
+    }
+
+    /**
+     * Pan with the wheel, zoom with Ctrl + wheel
+     *
+     * @param event
+     */
+    private void scroll(ScrollEvent event) {
+        if (event.isControlDown()) {
+            double x = event.getX() / zoom + offsetX;
+            double y = event.getY() / zoom + offsetY;
+            double factor = event.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+            // Keep the point under the mouse in place
+            offsetX = x - event.getX() / zoom;
+            offsetY = y - event.getY() / zoom;
+        } else {
+            offsetX -= event.getDeltaX() / zoom;
+            offsetY -= event.getDeltaY() / zoom;
+        }
+        offsetX = Math.max(0, Math.min(offsetX, geometry.width() - viewWidth() / zoom));
+        offsetY = Math.max(0, Math.min(offsetY, geometry.height() - viewHeight() / zoom));
+        layout();
+        event.consume();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Counters of the hidden cases and the flags, kept up to date by the moves
+ * instead of scanning the board
+ */
+public class BoardCountersTest {
+
+    @Test
+    public void countersFollowTheMoves() {
+        for (long seed = 0; seed < 20; seed++) {
+            playChecked(new Board2D(16, 30, 99, seed), seed);
+            playChecked(new BoardPyramid(16, 34, seed), seed);
+        }
+    }
+
+    @Test
+    public void wonWhenTheLastSafeCaseIsRevealed() {
+        Board board = new Board2D(9, 9, 10, 1L);
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (!board.cells.is(i, CellStore.TRAP) && !board.cells.is(i, CellStore.VISIBLE)) {
+                assertEquals(GameState.RUNNING, board.getState());
+                board.leftClick(board.rowOf(i), board.colOf(i));
+                assertEquals(hiddenSafeCase(board) ? GameState.RUNNING : GameState.WON, board.getState());
+            }
+        }
+        assertEquals(GameState.WON, board.getState());
+    }
+
+    @Test
+    public void wonWhenExactlyTheBombsAreFlagged() {
+        Board board = new Board2D(9, 9, 10, 2L);
+        int safe = 0;
+        while (board.cells.is(safe, CellStore.TRAP)) {
+            safe++;
+        }
+        board.rightClick(board.rowOf(safe), board.colOf(safe));
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (board.cells.is(i, CellStore.TRAP)) {
+                board.rightClick(board.rowOf(i), board.colOf(i));
+            }
+        }
+        // a wrong flag is left
+        assertEquals(GameState.RUNNING, board.getState());
+        assertEquals(board.getNbBomb() + 1, board.getNbFlag());
+        board.rightClick(board.rowOf(safe), board.colOf(safe));
+        assertEquals(GameState.WON, board.getState());
+    }
+
+    @Test
+    public void resetClearsTheCounters() {
+        Board board = new Board2D(16, 16, 40, 3L);
+        playChecked(board, 3L);
+        board.resetBoard(4L);
+        assertEquals(board.getNbCase(), board.getNbHidden());
+        assertEquals(0, board.getNbFlag());
+        assertTrue(board.checkCounters());
+        board.changeLevel(9, 9, 10);
+        assertEquals(81, board.getNbHidden());
+        assertTrue(board.checkCounters());
+    }
+
+    private static boolean hiddenSafeCase(Board board) {
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (!board.cells.is(i, CellStore.TRAP) && !board.cells.is(i, CellStore.VISIBLE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Play random moves until the end of the game, checking the counters
+     * against a scan of the board after each of them
+     */
+    private static void playChecked(Board board, long seed) {
+        Random random = new Random(seed);
+        while (!board.gameFinished()) {
+            int i = random.nextInt(board.getNbCase());
+            switch (random.nextInt(4)) {
+                case 0:
+                    board.rightClick(board.rowOf(i), board.colOf(i));
+                    break;
+                case 1:
+                    board.chord(board.rowOf(i), board.colOf(i));
+                    break;
+                default:
+                    if (!board.cells.is(i, CellStore.FLAG)) {
+                        board.leftClick(board.rowOf(i), board.colOf(i));
+                    }
+                    break;
+            }
+            assertTrue(board.checkCounters());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Save and load of the games
+ */
+public class BoardFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripOfAGameInProgress() throws IOException {
+        Board board = new Board2D(16, 30, 99);
+        board.resetBoard(42L, board.indexOf(8, 15));
+        board.leftClick(8, 15);
+        board.rightClick(0, 0);
+        board.rightClick(15, 29);
+
+        Path file = folder.newFile("game.msw").toPath();
+        BoardFile.save(board, file);
+        assertSameGame(board, BoardFile.load(file));
+    }
+
+    @Test
+    public void roundTripOfAPyramid() throws IOException {
+        Board board = new BoardPyramid(16, 34);
+        board.resetBoard(7L);
+        board.rightClick(3, 4);
+        assertSameGame(board, BoardFile.decode(BoardFile.encode(board)));
+    }
+
+    @Test
+    public void roundTripOfAGameNotStarted() throws IOException {
+        Board board = new Board2D(9, 9, 10);
+        board.setRandomKind(BombRandom.Kind.SPLITTABLE);
+        Board loaded = BoardFile.decode(BoardFile.encode(board));
+        assertSameGame(board, loaded);
+        assertEquals(false, loaded.isPlaced());
+    }
+
+    @Test
+    public void roundTripOfALostGame() throws IOException {
+        Board board = new Board2D(9, 9, 10, 3L);
+        int bomb = firstBomb(board);
+        board.leftClick(board.rowOf(bomb), board.colOf(bomb));
+        assertEquals(GameState.LOST, board.getState());
+        assertSameGame(board, BoardFile.decode(BoardFile.encode(board)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsABoardTooLarge() throws IOException {
+        ByteBuffer data = BoardFile.encode(new Board2D(9, 9, 10, 1L));
+        data.putInt(6, 100000); // rows
+        data.putInt(10, 100000); // columns
+        BoardFile.decode(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMoreBombsThanCases() throws IOException {
+        ByteBuffer data = BoardFile.encode(new Board2D(9, 9, 10, 1L));
+        data.putInt(14, 82);
+        BoardFile.decode(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnUnknownVersion() throws IOException {
+        ByteBuffer data = BoardFile.encode(new Board2D(9, 9, 10, 1L));
+        data.put(4, (byte) 2);
+        BoardFile.decode(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnUnknownGenerator() throws IOException {
+        ByteBuffer data = BoardFile.encode(new Board2D(9, 9, 10, 1L));
+        data.put(20, (byte) 100);
+        BoardFile.decode(data);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsATruncatedFile() throws IOException {
+        ByteBuffer data = BoardFile.encode(new Board2D(9, 9, 10, 1L));
+        data.limit(data.limit() - 1);
+        BoardFile.decode(data);
+    }
+
+    private static int firstBomb(Board board) {
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (board.cells.is(i, CellStore.TRAP)) {
+                return i;
+            }
+        }
+        throw new AssertionError("no bomb");
+    }
+
+    private static void assertSameGame(Board expected, Board actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getNbRow(), actual.getNbRow());
+        assertEquals(expected.getNbCase(), actual.getNbCase());
+        assertEquals(expected.getNbBomb(), actual.getNbBomb());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.isPlaced(), actual.isPlaced());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getOpening(), actual.getOpening());
+        assertEquals(expected.getRandomKind(), actual.getRandomKind());
+        assertEquals(expected.getNbFlag(), actual.getNbFlag());
+        assertEquals(expected.getNbHidden(), actual.getNbHidden());
+        for (int i = 0; i < expected.getNbCase(); i++) {
+            assertEquals("case " + i, expected.cells.get(i), actual.cells.get(i));
+        }
+        assertTrue(actual.checkCounters());
+    }
+}
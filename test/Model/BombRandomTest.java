@@ -0,0 +1,95 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.BitSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Placement of the bombs from a seed, for each kind of generator
+ */
+public class BombRandomTest {
+
+    private static final long SEED = 0x5EEDL;
+
+    @Test
+    public void sameSeedGivesSameBombs() {
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            assertEquals(kind.name(), bombs(kind, SEED, -1), bombs(kind, SEED, -1));
+        }
+    }
+
+    @Test
+    public void placesTheNumberOfBombsAsked() {
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            assertEquals(kind.name(), 99, bombs(kind, SEED, -1).cardinality());
+        }
+    }
+
+    @Test
+    public void seedsAndKindsGiveDifferentBombs() {
+        BombRandom.Kind[] kinds = BombRandom.Kind.values();
+        for (int k = 0; k < kinds.length; k++) {
+            assertNotEquals(kinds[k].name(), bombs(kinds[k], SEED, -1), bombs(kinds[k], SEED + 1, -1));
+            for (int l = k + 1; l < kinds.length; l++) {
+                assertNotEquals(kinds[k] + " " + kinds[l], bombs(kinds[k], SEED, -1), bombs(kinds[l], SEED, -1));
+            }
+        }
+    }
+
+    @Test
+    public void openingIsKeptFree() {
+        Board board = new Board2D(16, 30, 99);
+        int opening = board.indexOf(0, 0);
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int n = board.neighbours(opening, around);
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            for (long seed = 0; seed < 50; seed++) {
+                BitSet bombs = bombs(kind, seed, opening);
+                assertEquals(99, bombs.cardinality());
+                assertFalse(bombs.get(opening));
+                for (int k = 0; k < n; k++) {
+                    assertFalse(bombs.get(around[k]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void valueOfGivesTheKindOfAnOrdinal() {
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            assertEquals(kind, BombRandom.Kind.valueOf(kind.ordinal()));
+        }
+    }
+
+    @Test
+    public void nextIntStaysInItsBound() {
+        for (BombRandom.Kind kind : BombRandom.Kind.values()) {
+            BombRandom random = kind.create(SEED);
+            for (int bound = 1; bound < 1000; bound++) {
+                int value = random.nextInt(bound);
+                assertTrue(kind.name(), value >= 0 && value < bound);
+            }
+        }
+    }
+
+    private static BitSet bombs(BombRandom.Kind kind, long seed, int opening) {
+        Board board = new Board2D(16, 30, 99);
+        board.setRandomKind(kind);
+        board.resetBoard(seed, opening);
+        BitSet bombs = new BitSet();
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (board.cells.is(i, CellStore.TRAP)) {
+                bombs.set(i);
+            }
+        }
+        return bombs;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Packed cases : the flags and the number of bombs around share one byte
+ */
+public class CellStoreTest {
+
+    @Test
+    public void bitsAreIndependent() {
+        CellStore cells = new ArrayCellStore(4);
+        cells.set(1, CellStore.FLAG, true);
+        cells.set(1, CellStore.TRAP, true);
+        cells.setNbBomb(1, 8);
+        cells.set(1, CellStore.FLAG, false);
+        assertTrue(cells.is(1, CellStore.TRAP));
+        assertFalse(cells.is(1, CellStore.FLAG));
+        assertFalse(cells.is(1, CellStore.VISIBLE));
+        assertEquals(8, cells.getNbBomb(1));
+        assertEquals(0, cells.get(0));
+        assertEquals(0, cells.get(2));
+    }
+
+    @Test
+    public void numberOfBombsKeepsTheFlags() {
+        CellStore cells = new ArrayCellStore(1);
+        cells.set(0, CellStore.VISIBLE | CellStore.TRIGGERED);
+        for (int nb = 0; nb <= Board.MAX_NEIGHBOURS; nb++) {
+            cells.setNbBomb(0, nb);
+            assertEquals(nb, cells.getNbBomb(0));
+            assertTrue(cells.is(0, CellStore.VISIBLE | CellStore.TRIGGERED));
+        }
+    }
+
+    @Test
+    public void stateOfTheBits() {
+        assertEquals(CaseState.UNDISCOVERED, CellStore.stateOf(0));
+        assertEquals(CaseState.EMPTY, CellStore.stateOf(CellStore.VISIBLE));
+        assertEquals(CaseState.DISCOVERED, CellStore.stateOf(CellStore.VISIBLE | 3 << 4));
+        assertEquals(CaseState.TRAPPED, CellStore.stateOf(CellStore.TRAP));
+        assertEquals(CaseState.FLAGGED, CellStore.stateOf(CellStore.TRAP | CellStore.FLAG));
+        assertEquals(CaseState.TRIGGERED, CellStore.stateOf(CellStore.TRAP | CellStore.TRIGGERED));
+    }
+
+    @Test
+    public void clearHidesEveryCase() {
+        CellStore cells = new ArrayCellStore(100);
+        for (int i = 0; i < cells.size(); i++) {
+            cells.set(i, CellStore.TRAP | CellStore.VISIBLE);
+            cells.setNbBomb(i, i % 9);
+        }
+        cells.clear();
+        for (int i = 0; i < cells.size(); i++) {
+            assertEquals(0, cells.get(i));
+        }
+    }
+
+    @Test
+    public void casesAreViewsOfTheStore() {
+        Board board = new Board2D(9, 9, 10, 1L);
+        for (int row = 0; row < 9; row++) {
+            for (int col = 0; col < 9; col++) {
+                Case c = board.getCase(row, col);
+                int index = board.indexOf(row, col);
+                assertEquals(index, c.getIndex());
+                assertEquals(board.cells.is(index, CellStore.TRAP), c.isTrap());
+                assertEquals(board.cells.getNbBomb(index), c.getNbBomb());
+            }
+        }
+        board.getCase(2, 3).setFlag(true);
+        assertTrue(board.cells.is(board.indexOf(2, 3), CellStore.FLAG));
+        // one byte per case and the start of each row
+        assertEquals(81 + 4 * 10, board.getMemoryFootprint());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.Observer;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Chord on a discovered number
+ */
+public class ChordTest {
+
+    @Test
+    public void revealsTheOtherNeighboursAtOnce() {
+        Board board = Positions.board(
+                "F##*",
+                "#o##",
+                "####",
+                "*##*");
+        AtomicInteger notifications = count(board);
+        board.chord(1, 1);
+        assertEquals(1, notifications.get());
+        assertEquals(GameState.RUNNING, board.getState());
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int n = board.neighbours(board.indexOf(1, 1), around);
+        for (int k = 0; k < n; k++) {
+            assertEquals(around[k] != 0, board.cells.is(around[k], CellStore.VISIBLE));
+        }
+        assertFalse(board.cells.is(board.indexOf(0, 3), CellStore.VISIBLE));
+        assertTrue(board.checkCounters());
+    }
+
+    @Test
+    public void winsWhenTheLastCasesAreRevealed() {
+        Board board = Positions.board(
+                "F##",
+                "#o#",
+                "###");
+        board.chord(1, 1);
+        assertEquals(GameState.WON, board.getState());
+    }
+
+    @Test
+    public void wrongFlagLoses() {
+        Board board = Positions.board(
+                "*##",
+                "#o#",
+                "###");
+        board.rightClick(0, 1);
+        AtomicInteger notifications = count(board);
+        board.chord(1, 1);
+        assertEquals(1, notifications.get());
+        assertEquals(GameState.LOST, board.getState());
+        assertTrue(board.cells.is(0, CellStore.TRIGGERED));
+    }
+
+    @Test
+    public void flagsMustMatchTheNumber() {
+        Board board = Positions.board(
+                "*#*",
+                "#o#",
+                "###");
+        AtomicInteger notifications = count(board);
+        board.chord(1, 1);
+        board.rightClick(0, 0);
+        board.chord(1, 1);
+        board.rightClick(0, 1);
+        board.rightClick(0, 2);
+        board.chord(1, 1);
+        assertEquals(3, notifications.get()); // the flags only
+        assertEquals(GameState.RUNNING, board.getState());
+        assertFalse(board.cells.is(board.indexOf(1, 0), CellStore.VISIBLE));
+    }
+
+    @Test
+    public void hiddenCaseIsIgnored() {
+        Board board = Positions.board(
+                "F##",
+                "###",
+                "##o");
+        AtomicInteger notifications = count(board);
+        board.chord(1, 1);
+        assertEquals(0, notifications.get());
+        assertFalse(board.cells.is(board.indexOf(1, 1), CellStore.VISIBLE));
+    }
+
+    private static AtomicInteger count(Board board) {
+        AtomicInteger notifications = new AtomicInteger();
+        Observer o = (b, arg) -> notifications.incrementAndGet();
+        board.addObserver(o);
+        return notifications;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+
+/**
+ * Bombs placed by the first left click
+ */
+public class FirstClickTest {
+
+    @Test
+    public void firstClickOpensAnArea() {
+        for (int k = 0; k < 50; k++) {
+            Board board = new Board2D(9, 9, 70);
+            assertFalse(board.isPlaced());
+            board.leftClick(k % 9, k / 9 % 9);
+            assertTrue(board.isPlaced());
+            assertEquals(GameState.RUNNING, board.getState());
+            assertOpened(board, board.indexOf(k % 9, k / 9 % 9));
+            assertEquals(70, board.getNbBomb());
+            assertTrue(board.checkCounters());
+        }
+    }
+
+    @Test
+    public void bombsThatDoNotFitAreDropped() {
+        Board board = new Board2D(5, 5, 24);
+        board.leftClick(2, 2);
+        assertEquals(16, board.getNbBomb());
+        assertOpened(board, board.indexOf(2, 2));
+        assertEquals(GameState.WON, board.getState());
+    }
+
+    @Test
+    public void firstClickOnAPyramid() {
+        Board board = new BoardPyramid(9, 40);
+        board.leftClick(0, 8);
+        assertEquals(GameState.RUNNING, board.getState());
+        assertOpened(board, board.indexOf(0, 8));
+    }
+
+    @Test
+    public void flagsBeforeTheFirstClickAreKept() {
+        Board board = new Board2D(9, 9, 10);
+        board.rightClick(0, 0);
+        board.rightClick(8, 8);
+        board.leftClick(4, 4);
+        assertTrue(board.cells.is(board.indexOf(0, 0), CellStore.FLAG));
+        assertTrue(board.cells.is(board.indexOf(8, 8), CellStore.FLAG));
+        assertEquals(2, board.getNbFlag());
+        assertTrue(board.checkCounters());
+    }
+
+    @Test
+    public void firstClickWithoutGuess() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Board board = new Board2D(9, 9, 10);
+            board.setGenerator(new NoGuessGenerator(pool, 100000, 10000, NoGuessGenerator.DEFAULT_MAX_CASES));
+            board.leftClick(4, 4);
+            assertOpened(board, board.indexOf(4, 4));
+            assertEquals(GameState.WON, new Solver(board).solve());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Check that the case and its neighbours are free and visible
+     */
+    private static void assertOpened(Board board, int index) {
+        int[] around = new int[Board.MAX_NEIGHBOURS + 1];
+        int n = board.neighbours(index, around);
+        around[n++] = index;
+        for (int k = 0; k < n; k++) {
+            assertFalse(board.cells.is(around[k], CellStore.TRAP));
+            assertTrue(board.cells.is(around[k], CellStore.VISIBLE));
+        }
+    }
+}
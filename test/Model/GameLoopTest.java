@@ -0,0 +1,150 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * The single thread writing a board
+ */
+public class GameLoopTest {
+
+    private static final long TIMEOUT = 10;
+
+    private GameLoop loop;
+
+    @After
+    public void stopLoop() {
+        if (loop != null) {
+            loop.stop();
+        }
+    }
+
+    @Test
+    public void commandsRunInOrderOnOneThread() throws InterruptedException {
+        loop = new GameLoop(new Board2D(9, 9, 10, 1L));
+        List<Integer> order = new ArrayList<>();
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        AtomicInteger otherThreads = new AtomicInteger();
+        for (int i = 0; i < 100; i++) {
+            final int n = i;
+            loop.execute(() -> {
+                if (!thread.compareAndSet(null, Thread.currentThread()) && thread.get() != Thread.currentThread()) {
+                    otherThreads.incrementAndGet();
+                }
+                order.add(n);
+            });
+        }
+        await(loop);
+        assertEquals(0, otherThreads.get());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, (int) order.get(i));
+        }
+    }
+
+    @Test
+    public void queuedCommandsSendOneNotification() throws InterruptedException {
+        Board board = new Board2D(16, 16, 40, 2L);
+        loop = new GameLoop(board);
+        AtomicInteger notifications = new AtomicInteger();
+        board.addObserver((o, arg) -> notifications.incrementAndGet());
+        CountDownLatch blocked = new CountDownLatch(1);
+        loop.execute(() -> awaitQuietly(blocked));
+        for (int col = 0; col < 10; col++) {
+            final int c = col;
+            loop.execute(() -> board.rightClick(0, c));
+        }
+        blocked.countDown();
+        await(loop);
+        // the flags queued behind the blocked command run as one batch
+        assertEquals(10, board.getNbFlag());
+        assertTrue(notifications.get() < 10);
+        assertTrue(loop.getBatches() < loop.getProcessed());
+    }
+
+    @Test
+    public void fullMailboxRejectsTheCommands() throws InterruptedException {
+        loop = new GameLoop(new Board2D(9, 9, 10, 1L), 2);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        loop.execute(() -> {
+            started.countDown();
+            awaitQuietly(blocked);
+        });
+        assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+        AtomicInteger ran = new AtomicInteger();
+        assertTrue(loop.submit(ran::incrementAndGet));
+        assertTrue(loop.submit(ran::incrementAndGet));
+        assertFalse(loop.submit(ran::incrementAndGet));
+        try {
+            loop.execute(() -> {
+            });
+            fail("the mailbox is full");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        assertEquals(2, loop.getRejected());
+        blocked.countDown();
+        await(loop);
+        assertEquals(2, ran.get());
+    }
+
+    @Test
+    public void failureIsReportedAndTheLoopGoesOn() throws InterruptedException {
+        loop = new GameLoop(new Board2D(9, 9, 10, 1L));
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        loop.setErrorHandler((t, ex) -> reported.set(ex));
+        RuntimeException failure = new IllegalStateException("broken command");
+        loop.execute(() -> {
+            throw failure;
+        });
+        AtomicInteger after = new AtomicInteger();
+        loop.execute(after::incrementAndGet);
+        await(loop);
+        assertSame(failure, reported.get());
+        assertEquals(1, after.get());
+    }
+
+    @Test
+    public void stoppedLoopRejectsTheCommands() {
+        loop = new GameLoop(new Board2D(9, 9, 10, 1L));
+        loop.stop();
+        assertFalse(loop.submit(() -> {
+        }));
+    }
+
+    /**
+     * Wait until the commands queued before have run
+     */
+    private static void await(GameLoop loop) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        while (!loop.submit(done::countDown)) {
+            Thread.sleep(1); // the mailbox is still full
+        }
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
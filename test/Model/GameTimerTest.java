@@ -0,0 +1,95 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The countdown of a game, computed from the monotonic clock
+ */
+public class GameTimerTest {
+
+    private static final long TIMEOUT = 10;
+
+    @Test
+    public void elapsedTimeFollowsTheClock() throws InterruptedException {
+        GameTimer timer = new GameTimer(new TimerWheel(10, 16));
+        assertEquals(0, timer.getElapsedMillis());
+        long start = System.nanoTime();
+        timer.start();
+        Thread.sleep(100);
+        long elapsed = timer.getElapsedMillis();
+        long measured = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 100 && elapsed <= measured);
+        assertEquals(300, timer.getValueInt());
+    }
+
+    @Test
+    public void stopFreezesTheTimeAndResumeGoesOn() throws InterruptedException {
+        GameTimer timer = new GameTimer(new TimerWheel(10, 16));
+        timer.start();
+        Thread.sleep(30);
+        timer.stop();
+        long stopped = timer.getElapsedMillis();
+        Thread.sleep(50);
+        assertEquals(stopped, timer.getElapsedMillis());
+        timer.resume();
+        Thread.sleep(30);
+        long resumed = timer.getElapsedMillis();
+        // the 50 ms stopped are not counted
+        assertTrue(resumed >= stopped + 30 && resumed < stopped + 50 + 30);
+    }
+
+    @Test
+    public void restoreGivesTheSavedTime() {
+        GameTimer timer = new GameTimer(new TimerWheel(10, 16));
+        timer.restore(123_456);
+        assertEquals(123_456, timer.getElapsedMillis());
+        assertEquals(GameTimer.DURATION - 123_456, timer.getRemainingMillis());
+        // seconds left rounded up
+        assertEquals(177, timer.getValueInt());
+    }
+
+    @Test
+    public void observersSeeTheEndOfTheCountdown() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(10, 16);
+        GameTimer timer = new GameTimer(wheel);
+        timer.restore(GameTimer.DURATION - 50);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Integer> shown = new AtomicReference<>();
+        timer.addObserver((o, arg) -> {
+            shown.set(timer.getValueInt());
+            if (timer.isFinished()) {
+                finished.countDown();
+            }
+        });
+        long start = System.nanoTime();
+        timer.resume();
+        assertTrue(finished.await(TIMEOUT, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(0, (int) shown.get());
+        assertEquals(GameTimer.DURATION, timer.getElapsedMillis());
+        assertEquals(0, wheel.getNbPending());
+    }
+
+    @Test
+    public void timerWithoutObserverSchedulesNothing() {
+        TimerWheel wheel = new TimerWheel(10, 16);
+        GameTimer timer = new GameTimer(wheel);
+        timer.start();
+        assertEquals(0, wheel.getNbPending());
+        timer.addObserver((o, arg) -> {
+        });
+        assertEquals(1, wheel.getNbPending());
+        timer.stop();
+        assertEquals(0, wheel.getNbPending());
+    }
+}
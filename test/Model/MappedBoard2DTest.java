@@ -0,0 +1,161 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Boards kept in a file, reopened after a close or a crash
+ */
+public class MappedBoard2DTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopensAClosedBoard() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("closed.msw");
+        MappedBoard2D board = MappedBoard2D.create(file, 20, 30, 60);
+        play(board);
+        int[] expected = snapshot(board);
+        board.close();
+        try (MappedBoard2D reopened = MappedBoard2D.open(file)) {
+            assertSameGame(board, expected, reopened);
+        }
+    }
+
+    @Test
+    public void rescansABoardNotClosed() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("crash.msw");
+        try (MappedBoard2D board = MappedBoard2D.create(file, 20, 30, 60)) {
+            board.flush();
+            play(board); // not flushed : the header is older than the cases
+            try (MappedBoard2D reopened = MappedBoard2D.open(file)) {
+                assertSameGame(board, snapshot(board), reopened);
+                assertEquals(GameState.RUNNING, reopened.getState());
+            }
+        }
+    }
+
+    @Test
+    public void rescanFindsALostGame() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("lost.msw");
+        try (MappedBoard2D board = MappedBoard2D.create(file, 10, 10, 20)) {
+            board.leftClick(5, 5);
+            int bomb = 0;
+            while (!board.cells.is(bomb, CellStore.TRAP)) {
+                bomb++;
+            }
+            board.leftClick(board.rowOf(bomb), board.colOf(bomb));
+            assertEquals(GameState.LOST, board.getState());
+            try (MappedBoard2D reopened = MappedBoard2D.open(file)) {
+                assertEquals(GameState.LOST, reopened.getState());
+                assertTrue(reopened.checkCounters());
+            }
+        }
+    }
+
+    @Test
+    public void rescanFindsAWonGame() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("won.msw");
+        try (MappedBoard2D board = MappedBoard2D.create(file, 10, 10, 20)) {
+            board.leftClick(5, 5);
+            for (int i = 0; i < board.getNbCase(); i++) {
+                if (!board.cells.is(i, CellStore.TRAP)) {
+                    board.leftClick(board.rowOf(i), board.colOf(i));
+                }
+            }
+            assertEquals(GameState.WON, board.getState());
+            try (MappedBoard2D reopened = MappedBoard2D.open(file)) {
+                assertEquals(GameState.WON, reopened.getState());
+                assertTrue(reopened.checkCounters());
+            }
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnInvalidSize() throws IOException {
+        Path file = corrupt("size.msw", 6, -1);
+        MappedBoard2D.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsASizeNotMatchingTheFile() throws IOException {
+        Path file = corrupt("larger.msw", 6, 100);
+        MappedBoard2D.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsMoreBombsThanCases() throws IOException {
+        Path file = corrupt("bombs.msw", 14, 101);
+        MappedBoard2D.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnInvalidOpening() throws IOException {
+        Path file = corrupt("opening.msw", 28, 100);
+        MappedBoard2D.open(file);
+    }
+
+    /**
+     * Write a closed 10x10 board, then an int of its header
+     */
+    private Path corrupt(String name, int offset, int value) throws IOException {
+        Path file = folder.getRoot().toPath().resolve(name);
+        MappedBoard2D.create(file, 10, 10, 20).close();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer data = ByteBuffer.allocate(4).putInt(0, value);
+            channel.write(data, offset);
+        }
+        return file;
+    }
+
+    /**
+     * Open a case, then flag a hidden case
+     */
+    private static void play(Board board) {
+        board.leftClick(10, 10);
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (!board.cells.is(i, CellStore.VISIBLE)) {
+                board.rightClick(board.rowOf(i), board.colOf(i));
+                return;
+            }
+        }
+    }
+
+    private static int[] snapshot(Board board) {
+        int[] cells = new int[board.getNbCase()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = board.cells.get(i);
+        }
+        return cells;
+    }
+
+    private static void assertSameGame(Board expected, int[] cells, Board actual) {
+        assertEquals(expected.getNbRow(), actual.getNbRow());
+        assertEquals(expected.getNbCase(), actual.getNbCase());
+        assertEquals(expected.getNbBomb(), actual.getNbBomb());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.isPlaced(), actual.isPlaced());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getOpening(), actual.getOpening());
+        assertEquals(expected.getNbFlag(), actual.getNbFlag());
+        assertEquals(expected.getNbHidden(), actual.getNbHidden());
+        for (int i = 0; i < cells.length; i++) {
+            assertEquals("case " + i, cells[i], actual.cells.get(i));
+        }
+        assertTrue(actual.checkCounters());
+    }
+}
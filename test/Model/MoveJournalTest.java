@@ -0,0 +1,127 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Replay of the journals : the boards replayed end in the same state as the
+ * boards recorded
+ */
+public class MoveJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replayGivesTheSameBoards() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("games.mswj");
+        Board[] played = new Board[3];
+        long moves = 0;
+        try (MoveJournal journal = new MoveJournal(file)) {
+            played[0] = play(new Board2D(16, 30, 99), journal, 1L);
+            played[1] = play(new BoardPyramid(16, 34), journal, 2L);
+            Board jdk = new Board2D(9, 9, 10);
+            jdk.setRandomKind(BombRandom.Kind.JDK);
+            played[2] = play(jdk, journal, 3L);
+            moves = journal.getNbMove();
+        }
+
+        MoveReplayer replayer = MoveReplayer.load(file);
+        long replayed = 0;
+        for (Board board : played) {
+            assertTrue(replayer.nextGame());
+            replayed += replayer.fastForward(Long.MAX_VALUE);
+            assertSameCases(board, replayer.getBoard());
+        }
+        assertFalse(replayer.nextGame());
+        assertEquals(moves, replayed);
+    }
+
+    @Test
+    public void replayStepByStep() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("game.mswj");
+        Board board;
+        try (MoveJournal journal = new MoveJournal(file)) {
+            board = play(new Board2D(9, 9, 10), journal, 4L);
+        }
+        MoveReplayer replayer = MoveReplayer.load(file);
+        assertTrue(replayer.nextGame());
+        while (replayer.step()) {
+            assertTrue(replayer.getLastIndex() >= 0);
+        }
+        assertSameCases(board, replayer.getBoard());
+    }
+
+    @Test
+    public void ignoredMovesAreNotRecorded() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("ignored.mswj");
+        try (MoveJournal journal = new MoveJournal(file)) {
+            Board board = new Board2D(9, 9, 10);
+            board.setJournal(journal);
+            board.leftClick(4, 4);
+            board.leftClick(4, 4); // already discovered
+            assertEquals(1, journal.getNbMove());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsAnUnknownVersion() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(5).putInt(MoveJournal.MAGIC).put((byte) (MoveJournal.VERSION + 1));
+        data.flip();
+        new MoveReplayer(data);
+    }
+
+    /**
+     * Play random moves until the game is finished, the first click placing
+     * the bombs after a few flags
+     */
+    private static Board play(Board board, MoveJournal journal, long seed) {
+        board.setJournal(journal);
+        Random random = new Random(seed);
+        for (int k = 0; k < 3; k++) {
+            int i = random.nextInt(board.getNbCase());
+            board.rightClick(board.rowOf(i), board.colOf(i));
+        }
+        while (!board.gameFinished()) {
+            int i = random.nextInt(board.getNbCase());
+            int row = board.rowOf(i);
+            int col = board.colOf(i);
+            switch (random.nextInt(8)) {
+                case 0:
+                    board.rightClick(row, col);
+                    break;
+                case 1:
+                    board.chord(row, col);
+                    break;
+                default:
+                    if (!board.cells.is(i, CellStore.FLAG)) {
+                        board.leftClick(row, col);
+                    }
+                    break;
+            }
+        }
+        return board;
+    }
+
+    private static void assertSameCases(Board expected, Board actual) {
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getSeed(), actual.getSeed());
+        assertEquals(expected.getNbCase(), actual.getNbCase());
+        for (int i = 0; i < expected.getNbCase(); i++) {
+            assertEquals("case " + i, expected.cells.get(i), actual.cells.get(i));
+        }
+    }
+}
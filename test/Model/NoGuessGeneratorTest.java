@@ -0,0 +1,99 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+/**
+ * Boards generated without guess
+ */
+public class NoGuessGeneratorTest {
+
+    private static final long BUDGET = 10000;
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdown() {
+        POOL.shutdown();
+    }
+
+    @Test
+    public void solverWinsFromTheOpening() {
+        NoGuessGenerator generator = new NoGuessGenerator(POOL, 100000, BUDGET, NoGuessGenerator.DEFAULT_MAX_CASES);
+        for (long seed = 1; seed <= 5; seed++) {
+            Board board = new Board2D(9, 9, 10);
+            assertTrue(generator.generate(board, 4, 4, seed));
+            assertPlaced(board, board.indexOf(4, 4));
+            board.leftClick(4, 4);
+            assertEquals(GameState.WON, new Solver(board).solve());
+        }
+        assertTrue(generator.getNbCandidate() >= 5);
+    }
+
+    @Test
+    public void solverWinsAPyramid() {
+        NoGuessGenerator generator = new NoGuessGenerator(POOL, 100000, BUDGET, NoGuessGenerator.DEFAULT_MAX_CASES);
+        Board board = new BoardPyramid(9, 8);
+        assertTrue(generator.generate(board, 2, 6, 42));
+        assertPlaced(board, board.indexOf(2, 6));
+        board.leftClick(2, 6);
+        assertEquals(GameState.WON, new Solver(board).solve());
+    }
+
+    @Test
+    public void sameSeedSameBoard() {
+        NoGuessGenerator generator = new NoGuessGenerator(POOL, 100000, BUDGET, NoGuessGenerator.DEFAULT_MAX_CASES);
+        Board first = new Board2D(16, 16, 40);
+        Board second = new Board2D(16, 16, 40);
+        assertTrue(generator.generate(first, 3, 5, 7));
+        assertTrue(generator.generate(second, 3, 5, 7));
+        for (int i = 0; i < first.getNbCase(); i++) {
+            assertEquals(first.cells.is(i, CellStore.TRAP), second.cells.is(i, CellStore.TRAP));
+        }
+    }
+
+    @Test
+    public void largeBoardIsPlacedAtRandom() {
+        NoGuessGenerator generator = new NoGuessGenerator(POOL, 100000, BUDGET, 50);
+        Board board = new Board2D(10, 10, 20);
+        assertFalse(generator.generate(board, 5, 5, 3));
+        assertPlaced(board, board.indexOf(5, 5));
+        assertEquals(0, generator.getNbCandidate());
+    }
+
+    @Test
+    public void noCandidateLeftIsPlacedAtRandom() {
+        NoGuessGenerator generator = new NoGuessGenerator(POOL, 0, BUDGET, NoGuessGenerator.DEFAULT_MAX_CASES);
+        Board board = new Board2D(9, 9, 10);
+        assertFalse(generator.generate(board, 0, 0, 3));
+        assertPlaced(board, board.indexOf(0, 0));
+    }
+
+    /**
+     * Check that the bombs are placed, away from the opening
+     */
+    private static void assertPlaced(Board board, int opening) {
+        assertTrue(board.isPlaced());
+        int bombs = 0;
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (board.cells.is(i, CellStore.TRAP)) {
+                bombs++;
+            }
+        }
+        assertEquals(board.getNbBomb(), bombs);
+        assertFalse(board.cells.is(opening, CellStore.TRAP));
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int n = board.neighbours(opening, around);
+        for (int k = 0; k < n; k++) {
+            assertFalse(board.cells.is(around[k], CellStore.TRAP));
+        }
+    }
+}
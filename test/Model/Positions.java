@@ -0,0 +1,64 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+/**
+ * Boards built from a drawing, one string per row :
+ * <pre>
+ * * hidden bomb
+ * F flagged bomb
+ * # hidden case without bomb
+ * o visible case, showing the number of bombs around it
+ * </pre>
+ */
+final class Positions {
+
+    private Positions() {
+    }
+
+    /**
+     * Build a square board
+     *
+     * @param rows
+     * @return a running game, its bombs placed
+     */
+    static Board board(String... rows) {
+        int nbBomb = 0;
+        for (String row : rows) {
+            for (char c : row.toCharArray()) {
+                if (c == '*' || c == 'F') {
+                    nbBomb++;
+                }
+            }
+        }
+        Board board = new Board2D(rows.length, rows[0].length(), nbBomb);
+        for (int r = 0; r < rows.length; r++) {
+            for (int c = 0; c < rows[r].length(); c++) {
+                char t = rows[r].charAt(c);
+                if (t == '*' || t == 'F') {
+                    board.setTrap(board.indexOf(r, c), true);
+                }
+            }
+        }
+        board.restore(0L, -1, true, GameState.RUNNING);
+        for (int r = 0; r < rows.length; r++) {
+            for (int c = 0; c < rows[r].length(); c++) {
+                int index = board.indexOf(r, c);
+                switch (rows[r].charAt(c)) {
+                    case 'o':
+                        board.discover(index);
+                        break;
+                    case 'F':
+                        board.setCell(index, CellStore.FLAG, true);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return board;
+    }
+}
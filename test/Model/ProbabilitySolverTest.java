@@ -0,0 +1,121 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Probabilities of the bombs on known positions
+ */
+public class ProbabilitySolverTest {
+
+    private static final double EPSILON = 1e-9;
+    private static final long BUDGET = 10000;
+
+    @Test
+    public void certainCases() {
+        Board board = Positions.board(
+                "*#*",
+                "ooo",
+                "ooo");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertTrue(result.isComplete());
+        assertEquals(1, result.getProbability(0), EPSILON);
+        assertEquals(0, result.getProbability(1), EPSILON);
+        assertEquals(1, result.getProbability(2), EPSILON);
+        for (int i = 3; i < board.getNbCase(); i++) {
+            assertEquals(0, result.getProbability(i), EPSILON);
+        }
+    }
+
+    @Test
+    public void evenGuess() {
+        Board board = Positions.board(
+                "*#",
+                "oo");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getNbComponent());
+        assertEquals(0.5, result.getProbability(0), EPSILON);
+        assertEquals(0.5, result.getProbability(1), EPSILON);
+    }
+
+    @Test
+    public void bombsLeftGoToTheCasesFarFromTheNumbers() {
+        Board board = Positions.board("o*#*");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getProbability(1), EPSILON);
+        assertEquals(0.5, result.getProbability(2), EPSILON);
+        assertEquals(0.5, result.getProbability(3), EPSILON);
+    }
+
+    @Test
+    public void noBombLeftForTheOtherCases() {
+        Board board = Positions.board("o*##");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getProbability(1), EPSILON);
+        assertEquals(0, result.getProbability(2), EPSILON);
+        assertEquals(0, result.getProbability(3), EPSILON);
+    }
+
+    @Test
+    public void flagsAreBombs() {
+        Board board = Positions.board(
+                "F##",
+                "ooo");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getProbability(0), EPSILON);
+        assertEquals(0, result.getProbability(1), EPSILON);
+        assertEquals(0, result.getProbability(2), EPSILON);
+    }
+
+    @Test
+    public void safestCaseIsCertainWhenPossible() {
+        Board board = Positions.board(
+                "*#*",
+                "ooo",
+                "ooo");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getSafest());
+    }
+
+    @Test
+    public void safestCase() {
+        Board board = Positions.board(
+                "#*####",
+                "oo#*##",
+                "ooo###");
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        int safest = result.getSafest();
+        assertTrue(safest >= 0);
+        assertFalse(board.cells.is(safest, CellStore.VISIBLE));
+        assertFalse(board.cells.is(safest, CellStore.FLAG));
+        for (int i = 0; i < board.getNbCase(); i++) {
+            if (!board.cells.is(i, CellStore.VISIBLE) && !board.cells.is(i, CellStore.FLAG)) {
+                assertTrue(result.getProbability(safest) <= result.getProbability(i));
+            }
+        }
+    }
+
+    @Test
+    public void bigComponentIsGuessedLikeTheOthers() {
+        StringBuilder hidden = new StringBuilder();
+        StringBuilder visible = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            hidden.append(i % 3 == 0 ? '*' : '#');
+            visible.append('o');
+        }
+        Board board = Positions.board(hidden.toString(), visible.toString());
+        ProbabilitySolver.Result result = new ProbabilitySolver(board).solve(BUDGET);
+        assertEquals(1, result.getNbComponent());
+        assertFalse(result.isComplete());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(100 / 300.0, result.getProbability(i), EPSILON);
+        }
+    }
+}
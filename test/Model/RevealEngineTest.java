@@ -0,0 +1,134 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.BitSet;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * The iterative reveal against the recursive discovery it replaced
+ */
+public class RevealEngineTest {
+
+    @Test
+    public void revealOnSquareBoards() {
+        for (long seed = 0; seed < 20; seed++) {
+            check(new Board2D(16, 30, 60), seed);
+        }
+    }
+
+    @Test
+    public void revealOnPyramids() {
+        for (long seed = 0; seed < 20; seed++) {
+            check(new BoardPyramid(16, 20), seed);
+        }
+    }
+
+    @Test
+    public void revealOnAnEmptyBoard() {
+        Board board = new Board2D(100, 100, 0);
+        board.resetBoard(1L);
+        RevealEngine engine = new RevealEngine(board);
+        IntList revealed = engine.reveal(board.indexOf(50, 50));
+        assertEquals(board.getNbCase(), revealed.size());
+        assertEquals(board.indexOf(50, 50), revealed.get(0));
+        assertEquals(0, engine.reveal(board.indexOf(50, 50)).size());
+    }
+
+    @Test
+    public void tooManyCasesAreOnlyCounted() {
+        Board board = new Board2D(300, 300, 0);
+        board.resetBoard(1L);
+        RevealEngine engine = new RevealEngine(board);
+        assertNull(engine.reveal(0));
+        assertEquals(board.getNbCase(), engine.getNbRevealed());
+        assertEquals(0, board.getNbHidden());
+    }
+
+    @Test
+    public void revealNeighboursOfANumber() {
+        Board board = new Board2D(16, 30, 60);
+        board.resetBoard(5L);
+        int number = 0;
+        while (board.cells.is(number, CellStore.TRAP) || board.cells.getNbBomb(number) == 0) {
+            number++;
+        }
+        BitSet expected = new BitSet();
+        recursiveRevealAround(board, number, expected);
+        assertSame(expected, new RevealEngine(board).revealNeighbours(number));
+        assertVisible(board, expected);
+    }
+
+    /**
+     * Reveal from a few cases, some flags left on the way, and compare with
+     * the recursive discovery
+     */
+    private static void check(Board board, long seed) {
+        board.resetBoard(seed);
+        Random random = new Random(seed);
+        for (int k = 0; k < 5; k++) {
+            int flag = random.nextInt(board.getNbCase());
+            board.rightClick(board.rowOf(flag), board.colOf(flag));
+        }
+        BitSet expected = new BitSet();
+        RevealEngine engine = new RevealEngine(board);
+        for (int k = 0; k < 10; k++) {
+            int i = random.nextInt(board.getNbCase());
+            if (board.cells.is(i, CellStore.TRAP)) {
+                continue;
+            }
+            BitSet before = (BitSet) expected.clone();
+            recursiveReveal(board, i, expected);
+            expected.andNot(before);
+            assertSame(expected, engine.reveal(i));
+            expected.or(before);
+            assertVisible(board, expected);
+        }
+    }
+
+    /**
+     * The cases listed are the cases expected, each once
+     */
+    private static void assertSame(BitSet expected, IntList revealed) {
+        BitSet listed = new BitSet();
+        for (int k = 0; k < revealed.size(); k++) {
+            listed.set(revealed.get(k));
+        }
+        assertEquals(expected.cardinality(), revealed.size());
+        assertEquals(expected, listed);
+    }
+
+    private static void assertVisible(Board board, BitSet expected) {
+        for (int i = 0; i < board.getNbCase(); i++) {
+            assertEquals("case " + i, expected.get(i), board.cells.is(i, CellStore.VISIBLE));
+        }
+    }
+
+    /**
+     * The discovery of the first version : a case, then its neighbours if it
+     * has no bomb around
+     */
+    private static void recursiveReveal(Board board, int index, BitSet visible) {
+        if (visible.get(index) || board.cells.is(index, CellStore.FLAG)) {
+            return;
+        }
+        visible.set(index);
+        if (board.cells.getNbBomb(index) == 0 && !board.cells.is(index, CellStore.TRAP)) {
+            recursiveRevealAround(board, index, visible);
+        }
+    }
+
+    private static void recursiveRevealAround(Board board, int index, BitSet visible) {
+        int[] around = new int[Board.MAX_NEIGHBOURS];
+        int n = board.neighbours(index, around);
+        for (int k = 0; k < n; k++) {
+            recursiveReveal(board, around[k], visible);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Deductions of the solver on known positions
+ */
+public class SolverTest {
+
+    @Test
+    public void findsTheBombsByDifference() {
+        Board board = Positions.board(
+                "*#*",
+                "ooo",
+                "ooo");
+        Solver solver = new Solver(board);
+        assertTrue(solver.deduce());
+        assertTrue(contains(solver.getMines(), 0));
+        assertTrue(contains(solver.getMines(), 2));
+        assertFalse(contains(solver.getMines(), 1));
+        assertFalse(contains(solver.getSafe(), 0));
+        assertFalse(contains(solver.getSafe(), 2));
+    }
+
+    @Test
+    public void solvesAPositionWithoutGuess() {
+        Board board = Positions.board(
+                "*#*",
+                "ooo",
+                "ooo");
+        assertEquals(GameState.WON, new Solver(board).solve());
+    }
+
+    @Test
+    public void findsTheCasesSafeAroundAFlag() {
+        Board board = Positions.board(
+                "F##",
+                "ooo",
+                "ooo");
+        Solver solver = new Solver(board);
+        assertTrue(solver.deduce());
+        assertTrue(contains(solver.getSafe(), 1));
+        assertTrue(contains(solver.getSafe(), 2));
+        assertEquals(0, solver.getMines().size());
+    }
+
+    @Test
+    public void stopsOnAGuess() {
+        Board board = Positions.board(
+                "*#",
+                "oo");
+        Solver solver = new Solver(board);
+        assertEquals(GameState.RUNNING, solver.solve());
+        assertEquals(0, solver.getNbMove());
+    }
+
+    @Test
+    public void neverLosesFromAnOpening() {
+        for (long seed = 0; seed < 20; seed++) {
+            Board board = new Board2D(16, 30, 99);
+            board.resetBoard(seed, board.indexOf(8, 15));
+            board.leftClick(8, 15);
+            Solver solver = new Solver(board);
+            assertNotEquals("seed " + seed, GameState.LOST, solver.solve());
+            solver.detach();
+        }
+    }
+
+    private static boolean contains(IntList list, int value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * The wheel shared by the timers of the games
+ */
+public class TimerWheelTest {
+
+    private static final long TIMEOUT = 10;
+
+    @Test
+    public void taskNeverRunsBeforeItsDelay() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(5, 16);
+        for (long delay : new long[]{0, 1, 7, 50, 120}) {
+            CountDownLatch done = new CountDownLatch(1);
+            AtomicReference<Long> ran = new AtomicReference<>();
+            long start = System.nanoTime();
+            wheel.schedule(() -> {
+                ran.set(System.nanoTime());
+                done.countDown();
+            }, delay);
+            assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+            assertTrue("delay " + delay, TimeUnit.NANOSECONDS.toMillis(ran.get() - start) >= delay);
+        }
+    }
+
+    @Test
+    public void tasksRunInTheOrderOfTheirDeadlines() throws InterruptedException {
+        // 8 slots of 2 ms : the delays go around the wheel several times
+        TimerWheel wheel = new TimerWheel(2, 8);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(4);
+        for (int delay : new int[]{60, 5, 33, 17}) {
+            wheel.schedule(() -> {
+                order.add(delay);
+                done.countDown();
+            }, delay);
+        }
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(5, 17, 33, 60), order);
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(5, 16);
+        AtomicInteger runs = new AtomicInteger();
+        TimerWheel.Timeout cancelled = wheel.schedule(runs::incrementAndGet, 20);
+        CountDownLatch done = new CountDownLatch(1);
+        TimerWheel.Timeout last = wheel.schedule(done::countDown, 40);
+        assertEquals(2, wheel.getNbPending());
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertEquals(1, wheel.getNbPending());
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertFalse(last.cancel());
+        assertEquals(0, runs.get());
+        assertEquals(0, wheel.getNbPending());
+    }
+
+    @Test
+    public void manyTasksAllRun() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(1, 64);
+        int n = 10000;
+        CountDownLatch done = new CountDownLatch(n);
+        for (int i = 0; i < n; i++) {
+            wheel.schedule(done::countDown, i % 100);
+        }
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void threadWaitsWithoutTask() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(1, 16);
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            thread.set(Thread.currentThread());
+            done.countDown();
+        }, 1);
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+        // a wheel still ticking would be sleeping (TIMED_WAITING) or running
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT);
+        while (thread.get().getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.get().getState());
+        Thread.sleep(50);
+        assertEquals(Thread.State.WAITING, thread.get().getState());
+
+        // and starts again with the next task
+        CountDownLatch again = new CountDownLatch(1);
+        wheel.schedule(again::countDown, 5);
+        assertTrue(again.await(TIMEOUT, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failureIsReportedAndTheWheelGoesOn() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(5, 16);
+        AtomicReference<Throwable> reported = new AtomicReference<>();
+        wheel.setErrorHandler((t, ex) -> reported.set(ex));
+        RuntimeException failure = new IllegalStateException("broken task");
+        wheel.schedule(() -> {
+            throw failure;
+        }, 5);
+        CountDownLatch done = new CountDownLatch(1);
+        wheel.schedule(done::countDown, 20);
+        assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+        assertSame(failure, reported.get());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Polytech Lyon - 2016
+ * Jensen JOYMANGUL & Gaetan MARTIN
+ * Projet Informatique 3A - Creation d'un demineur MVC
+ */
+package Server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The protocol of the game server, over a real connection
+ */
+public class GameServerTest {
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private GameServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new GameServer(0, folder.getRoot().toPath());
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void playAGame() throws IOException {
+        try (Client client = new Client()) {
+            String id = client.ok("NEW SQUARE 9 9 10 42");
+            String reveal = client.ok("REVEAL " + id + " 4 4");
+            assertTrue(reveal, reveal.startsWith("RUNNING ") || reveal.startsWith("WON ") || reveal.startsWith("LOST "));
+            client.ok("RESET " + id + " 7");
+            String flag = client.ok("FLAG " + id + " 0 0");
+            assertEquals("RUNNING 1 0", flag);
+            assertEquals("OK", client.request("CLOSE " + id));
+            assertTrue(Files.size(journal(id)) > 0);
+        }
+    }
+
+    @Test
+    public void playAPyramid() throws IOException {
+        try (Client client = new Client()) {
+            String id = client.ok("NEW PYRAMID 16 34 1");
+            assertEquals("RUNNING 1 0", client.ok("FLAG " + id + " 0 0"));
+        }
+    }
+
+    @Test
+    public void badRequestsGetAnErrorAndKeepTheConnection() throws IOException {
+        try (Client client = new Client()) {
+            String[] bad = {
+                "NEW SQUARE -1 9 10 1",
+                "NEW SQUARE 9 0 10 1",
+                "NEW SQUARE 100000 100000 10 1",
+                "NEW SQUARE 2147483647 2147483647 10 1",
+                "NEW PYRAMID 100000 10 1",
+                "NEW SQUARE 9 9 82 1",
+                "NEW SQUARE 9 9 -1 1",
+                "NEW HEXAGON 9 9 10 1",
+                "NEW SQUARE 9 x 10 1",
+                "NEW SQUARE 9",
+                "REVEAL 12345 0 0",
+                "JUMP",};
+            for (String request : bad) {
+                String reply = client.request(request);
+                assertTrue(request + " -> " + reply, reply.startsWith("ERR "));
+            }
+            String id = client.ok("NEW SQUARE 9 9 10 1");
+            assertTrue(client.request("REVEAL " + id + " 9 0").startsWith("ERR "));
+            assertEquals(0, server.getNbSession() - 1);
+        }
+    }
+
+    @Test
+    public void sessionsOfAClosedConnectionAreClosed() throws IOException, InterruptedException {
+        String kept;
+        try (Client client = new Client()) {
+            kept = client.ok("NEW SQUARE 9 9 10 1");
+            client.ok("NEW SQUARE 9 9 10 2");
+            client.ok("FLAG " + kept + " 0 0");
+            assertEquals(2, server.getNbSession());
+        }
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (server.getNbSession() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, server.getNbSession());
+        try (Client client = new Client()) {
+            assertTrue(client.request("FLAG " + kept + " 0 1").startsWith("ERR "));
+        }
+    }
+
+    private Path journal(String id) {
+        return folder.getRoot().toPath().resolve("session-" + id + ".mswj");
+    }
+
+    /**
+     * A connection sending one request at a time
+     */
+    private final class Client implements AutoCloseable {
+
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        private Client() throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true);
+        }
+
+        private String request(String line) throws IOException {
+            out.println(line);
+            return in.readLine();
+        }
+
+        /**
+         * Send a request expected to succeed
+         *
+         * @return the reply without its OK
+         */
+        private String ok(String line) throws IOException {
+            String reply = request(line);
+            assertTrue(line + " -> " + reply, reply.startsWith("OK "));
+            return reply.substring(3);
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}